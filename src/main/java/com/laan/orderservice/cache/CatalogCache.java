@@ -0,0 +1,139 @@
+package com.laan.orderservice.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.laan.orderservice.enums.ProductType;
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bounded in-process cache of products and users in front of the repositories,
+ * used for prices and existence checks of order requests.
+ * Every invalidation moves the cache to a new version, so that a lookup which read the database
+ * before the invalidation cannot put its stale result into the cache afterwards. The version is compared within the
+ * atomic update of the entry.
+ * Misses are read over a connection pool of its own, outside the transaction of the caller: the snapshot of that
+ * transaction may be older than the invalidation, and it may hold the last free connection of the main pool.
+ *
+ * @author Lalanke Athauda
+ */
+public class CatalogCache implements AutoCloseable {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(CatalogCache.class);
+
+    private static final String SELECT_PRODUCTS_SQL = "select id, type, unit_price from product where id in (:ids)";
+
+    private static final String SELECT_USER_SQL = "select count(*) from `user` where id = :id";
+
+    private final HikariDataSource dataSource;
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+
+    private final Cache<Long, CatalogProduct> products;
+
+    private final Cache<Long, Boolean> users;
+
+    private final AtomicLong version = new AtomicLong();
+
+    public CatalogCache(HikariDataSource dataSource, MeterRegistry meterRegistry, long maximumSize, Duration expireAfterWrite) {
+        this.dataSource = dataSource;
+        this.jdbcTemplate = new NamedParameterJdbcTemplate(dataSource);
+        this.products = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(expireAfterWrite)
+                .recordStats()
+                .build();
+        // only existing users are cached, an unknown user is looked up again every time
+        this.users = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(expireAfterWrite)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, products, "catalog.products");
+        CaffeineCacheMetrics.monitor(meterRegistry, users, "catalog.users");
+    }
+
+    /**
+     * Gets the products, reading only the ones missing in the cache from the database with a single query
+     * @param ids product ids
+     * @return products keyed by id, unknown ids are left out
+     */
+    public Map<Long, CatalogProduct> getProducts(Collection<Long> ids) {
+        Map<Long, CatalogProduct> catalogProducts = new HashMap<>(products.getAllPresent(ids));
+        if (catalogProducts.size() == ids.size()) {
+            return catalogProducts;
+        }
+
+        Set<Long> missingIds = new HashSet<>(ids);
+        missingIds.removeAll(catalogProducts.keySet());
+        long loadedVersion = version.get();
+        Map<Long, CatalogProduct> loadedProducts = new HashMap<>();
+        jdbcTemplate.query(SELECT_PRODUCTS_SQL, Map.of("ids", missingIds), resultSet -> {
+            CatalogProduct catalogProduct = new CatalogProduct(resultSet.getLong("id"),
+                    ProductType.valueOf(resultSet.getString("type")), resultSet.getBigDecimal("unit_price"));
+            loadedProducts.put(catalogProduct.getId(), catalogProduct);
+        });
+        for (Map.Entry<Long, CatalogProduct> entry : loadedProducts.entrySet()) {
+            putIfCurrent(products, entry.getKey(), entry.getValue(), loadedVersion);
+        }
+        catalogProducts.putAll(loadedProducts);
+        return catalogProducts;
+    }
+
+    public boolean userExists(Long id) {
+        if (users.getIfPresent(id) != null) {
+            return true;
+        }
+        long loadedVersion = version.get();
+        boolean exists = jdbcTemplate.queryForObject(SELECT_USER_SQL, Map.of("id", id), Integer.class) > 0;
+        if (exists) {
+            putIfCurrent(users, id, Boolean.TRUE, loadedVersion);
+        }
+        return exists;
+    }
+
+    /**
+     * Puts a value read at the given version, unless the cache has moved to a newer version since. An invalidation
+     * moves the version before it removes the entry, and the removal waits for the update of the same entry, so either
+     * the value is put and then removed, or it sees the newer version and is left out.
+     */
+    private <V> void putIfCurrent(Cache<Long, V> cache, Long id, V value, long loadedVersion) {
+        cache.asMap().compute(id, (key, cachedValue) -> loadedVersion == version.get() ? value : cachedValue);
+    }
+
+    public void evictProduct(Long id) {
+        version.incrementAndGet();
+        products.invalidate(id);
+        LOGGER.info("evicted product: {} from catalog cache", id);
+    }
+
+    public void evictUser(Long id) {
+        version.incrementAndGet();
+        users.invalidate(id);
+        LOGGER.info("evicted user: {} from catalog cache", id);
+    }
+
+    public void evictAll() {
+        version.incrementAndGet();
+        products.invalidateAll();
+        users.invalidateAll();
+        LOGGER.info("evicted all products and users from catalog cache");
+    }
+
+    @Override
+    public void close() {
+        dataSource.close();
+    }
+}
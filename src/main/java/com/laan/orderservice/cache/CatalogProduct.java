@@ -0,0 +1,27 @@
+package com.laan.orderservice.cache;
+
+import com.laan.orderservice.enums.ProductType;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+import java.math.BigDecimal;
+
+/**
+ * Catalog details of a product which rarely change. Stock quantity is left out on purpose,
+ * it must always be read from the database.
+ *
+ * @author Lalanke Athauda
+ */
+@Getter
+@AllArgsConstructor
+@ToString
+public class CatalogProduct {
+
+    private final Long id;
+
+    private final ProductType type;
+
+    private final BigDecimal unitPrice;
+
+}
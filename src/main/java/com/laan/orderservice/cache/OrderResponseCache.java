@@ -0,0 +1,66 @@
+package com.laan.orderservice.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.laan.orderservice.response.OrderResponse;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Objects;
+
+/**
+ * Bounded in-process cache of order responses by order id. An entry is only returned for the version the order has
+ * in the database, so an entry left behind by a change on another instance, or by a rolled back change, is never
+ * served and is replaced by the next read.
+ *
+ * @author Lalanke Athauda
+ */
+@Component
+public class OrderResponseCache {
+
+    private final Cache<Long, OrderResponse> orderResponses;
+
+    @Autowired
+    public OrderResponseCache(MeterRegistry meterRegistry,
+                              @Value("${order-service.orders.cache.maximum-size}") long maximumSize,
+                              @Value("${order-service.orders.cache.expire-after-access}") Duration expireAfterAccess) {
+        this.orderResponses = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterAccess(expireAfterAccess)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, orderResponses, "orders.responses");
+    }
+
+    /**
+     * Gets the cached response of the order
+     * @param id order id
+     * @param version current version of the order
+     * @return response of the given version, null when it is not cached
+     */
+    public OrderResponse get(Long id, Long version) {
+        OrderResponse orderResponse = orderResponses.getIfPresent(id);
+        if (orderResponse == null || !Objects.equals(orderResponse.getVersion(), version)) {
+            return null;
+        }
+        return orderResponse;
+    }
+
+    /**
+     * Caches a complete response of the order, unless a newer version is cached already
+     * @param orderResponse response with the products of the order, cached responses must not be changed afterwards
+     */
+    public void put(OrderResponse orderResponse) {
+        orderResponses.asMap().merge(orderResponse.getId(), orderResponse,
+                (cached, loaded) -> cached.getVersion() != null && loaded.getVersion() != null
+                        && cached.getVersion() > loaded.getVersion() ? cached : loaded);
+    }
+
+    public void evict(Long id) {
+        orderResponses.invalidate(id);
+    }
+}
@@ -0,0 +1,28 @@
+package com.laan.orderservice.calculator;
+
+import com.laan.orderservice.entity.OrderProductEntity;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+/**
+ * Utility class to calculate prices of orders and their products
+ *
+ * @author Lalanke Athauda
+ */
+@Component
+public class OrderPriceCalculator {
+
+    public BigDecimal calculateOrderProductPrice(BigDecimal unitPrice, Integer quantity) {
+        return unitPrice.multiply(BigDecimal.valueOf(quantity));
+    }
+
+    public BigDecimal calculateOrderTotalPrice(List<OrderProductEntity> orderProductEntities) {
+        BigDecimal totalPrice = BigDecimal.ZERO;
+        for (OrderProductEntity orderProductEntity : orderProductEntities) {
+            totalPrice = totalPrice.add(orderProductEntity.getPrice());
+        }
+        return totalPrice;
+    }
+}
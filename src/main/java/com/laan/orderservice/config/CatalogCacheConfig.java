@@ -0,0 +1,29 @@
+package com.laan.orderservice.config;
+
+import com.laan.orderservice.cache.CatalogCache;
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+@Configuration
+public class CatalogCacheConfig {
+
+    /**
+     * Catalog cache reading its misses from the primary, over a pool of its own
+     */
+    @Bean
+    public CatalogCache catalogCache(DataSourceProperties dataSourceProperties, MeterRegistry meterRegistry,
+                                     @Value("${order-service.catalog.cache.maximum-size}") long maximumSize,
+                                     @Value("${order-service.catalog.cache.expire-after-write}") Duration expireAfterWrite,
+                                     @Value("${order-service.catalog.pool-size}") int poolSize) {
+        HikariDataSource dataSource = dataSourceProperties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        dataSource.setPoolName("catalog-loader");
+        dataSource.setMaximumPoolSize(poolSize);
+        return new CatalogCache(dataSource, meterRegistry, maximumSize, expireAfterWrite);
+    }
+}
@@ -0,0 +1,71 @@
+package com.laan.orderservice.config;
+
+import com.laan.orderservice.datasource.ReadWriteRoutingDataSource;
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
+
+@Configuration
+public class DataSourceConfig {
+
+    /**
+     * Pool of the primary database, configured by spring.datasource and spring.datasource.hikari
+     */
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(DataSourceProperties dataSourceProperties) {
+        return dataSourceProperties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+    }
+
+    /**
+     * Pools of the replicas with the credentials and the settings of the primary pool, connections are read only
+     */
+    @Bean
+    public ReadWriteRoutingDataSource readWriteRoutingDataSource(HikariDataSource primaryDataSource,
+                                                                 @Value("${order-service.datasource.replica-urls}") List<String> replicaUrls) {
+        List<HikariDataSource> replicaDataSources = new ArrayList<>();
+        for (String replicaUrl : replicaUrls) {
+            HikariConfig replicaConfig = new HikariConfig();
+            primaryDataSource.copyStateTo(replicaConfig);
+            replicaConfig.setJdbcUrl(replicaUrl);
+            replicaConfig.setPoolName(primaryDataSource.getPoolName() + "-replica-" + replicaDataSources.size());
+            replicaConfig.setReadOnly(true);
+            replicaDataSources.add(new HikariDataSource(replicaConfig));
+        }
+        return new ReadWriteRoutingDataSource(primaryDataSource, replicaDataSources);
+    }
+
+    /**
+     * Exports the replica pools like the primary one, which is exported as a bean
+     */
+    @Bean
+    public MeterBinder replicaPoolMetrics(ReadWriteRoutingDataSource readWriteRoutingDataSource) {
+        return meterRegistry -> {
+            for (HikariDataSource replicaDataSource : readWriteRoutingDataSource.getReplicaDataSources()) {
+                replicaDataSource.setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(meterRegistry));
+            }
+        };
+    }
+
+    /**
+     * Data source of the application, the connection is taken on the first statement of a transaction,
+     * once it is known whether the transaction is read only
+     */
+    @Bean
+    @Primary
+    public DataSource dataSource(ReadWriteRoutingDataSource readWriteRoutingDataSource) {
+        return new LazyConnectionDataSourceProxy(readWriteRoutingDataSource);
+    }
+}
@@ -0,0 +1,29 @@
+package com.laan.orderservice.config;
+
+import com.laan.orderservice.id.BlockIdGenerator;
+import com.laan.orderservice.id.IdBlockAllocator;
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class IdGeneratorConfig {
+
+    @Bean
+    public IdBlockAllocator idBlockAllocator(DataSourceProperties dataSourceProperties,
+                                             @Value("${order-service.id.block-size}") int blockSize,
+                                             @Value("${order-service.id.pool-size}") int poolSize) {
+        HikariDataSource dataSource = dataSourceProperties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        dataSource.setPoolName("id-allocator");
+        dataSource.setMaximumPoolSize(poolSize);
+        return new IdBlockAllocator(dataSource, blockSize);
+    }
+
+    @Bean
+    public HibernatePropertiesCustomizer idBlockAllocatorCustomizer(IdBlockAllocator idBlockAllocator) {
+        return hibernateProperties -> hibernateProperties.put(BlockIdGenerator.ALLOCATOR_SETTING, idBlockAllocator);
+    }
+}
@@ -1,9 +1,12 @@
 package com.laan.orderservice.config;
 
 import org.apache.activemq.command.ActiveMQQueue;
+import org.springframework.boot.autoconfigure.jms.DefaultJmsListenerContainerFactoryConfigurer;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.jms.config.DefaultJmsListenerContainerFactory;
 
+import javax.jms.ConnectionFactory;
 import javax.jms.Queue;
 
 @Configuration
@@ -13,4 +16,16 @@ public class QueueConfig {
     public Queue queue() {
         return new ActiveMQQueue("apparel-shop-queue");
     }
+
+    /**
+     * Listener container factory for topics, every instance of the service receives each message
+     */
+    @Bean
+    public DefaultJmsListenerContainerFactory topicListenerContainerFactory(DefaultJmsListenerContainerFactoryConfigurer configurer,
+                                                                           ConnectionFactory connectionFactory) {
+        DefaultJmsListenerContainerFactory factory = new DefaultJmsListenerContainerFactory();
+        configurer.configure(factory, connectionFactory);
+        factory.setPubSubDomain(true);
+        return factory;
+    }
 }
@@ -0,0 +1,52 @@
+package com.laan.orderservice.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.embedded.tomcat.TomcatProtocolHandlerCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Opt-in execution of requests on virtual threads, enabled with order-service.threads.virtual=true.
+ * Every request then gets a virtual thread of its own instead of waiting for one of the Tomcat worker threads,
+ * so requests blocked on JDBC or JMS no longer hold a platform thread. The connection pool stays the bound on
+ * the work reaching the database.
+ * Virtual threads need Java 21 at runtime. The service is still built for Java 17, so the executor is created
+ * reflectively, and on an older runtime the Tomcat worker threads are kept.
+ *
+ * @author Lalanke Athauda
+ */
+@Configuration
+@ConditionalOnProperty(name = "order-service.threads.virtual", havingValue = "true")
+public class RequestExecutionConfig {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(RequestExecutionConfig.class);
+
+    @Bean
+    public TomcatProtocolHandlerCustomizer<?> virtualThreadProtocolHandlerCustomizer() {
+        ExecutorService executorService = newVirtualThreadPerTaskExecutor();
+        return protocolHandler -> {
+            if (executorService != null) {
+                protocolHandler.setExecutor(executorService);
+                LOGGER.info("requests are executed on virtual threads");
+            } else {
+                LOGGER.warn("virtual threads are not available on Java {}, requests are executed on Tomcat worker threads",
+                        Runtime.version().feature());
+            }
+        };
+    }
+
+    private ExecutorService newVirtualThreadPerTaskExecutor() {
+        try {
+            Method method = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) method.invoke(null);
+        } catch (ReflectiveOperationException exception) {
+            return null;
+        }
+    }
+}
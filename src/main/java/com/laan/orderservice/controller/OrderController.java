@@ -1,18 +1,36 @@
 package com.laan.orderservice.controller;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
 import com.laan.orderservice.enums.OrderStatus;
+import com.laan.orderservice.intake.OrderIntakeHandler;
+import com.laan.orderservice.request.BatchOrderRequest;
+import com.laan.orderservice.request.BatchOrderStatusRequest;
 import com.laan.orderservice.request.OrderRequest;
+import com.laan.orderservice.request.OrderSearchRequest;
+import com.laan.orderservice.response.BatchResponse;
+import com.laan.orderservice.response.OrderIntakeResponse;
+import com.laan.orderservice.response.OrderPageResponse;
 import com.laan.orderservice.response.OrderResponse;
 import com.laan.orderservice.service.OrderService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 
+import javax.servlet.http.HttpServletResponse;
 import javax.validation.Valid;
-import java.util.List;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
 
 /**
  * Controller for order processing
@@ -25,35 +43,105 @@ public class OrderController {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(OrderController.class);
 
+    private static final String NDJSON_MEDIA_TYPE = "application/x-ndjson";
+
+    private static final String IDEMPOTENCY_KEY_HEADER = "Idempotency-Key";
+
     private final OrderService orderService;
 
+    private final OrderIntakeHandler orderIntakeHandler;
+
+    private final boolean asyncIntake;
+
+    private final ObjectWriter ndjsonWriter;
+
     @Autowired
-    public OrderController(OrderService orderService) {
+    public OrderController(OrderService orderService, OrderIntakeHandler orderIntakeHandler, ObjectMapper objectMapper,
+                           @Value("${order-service.intake.async}") boolean asyncIntake) {
         this.orderService = orderService;
+        this.orderIntakeHandler = orderIntakeHandler;
+        this.asyncIntake = asyncIntake;
+        // rows are written one after the other into the response, the servlet buffer decides when to flush
+        this.ndjsonWriter = objectMapper.writer()
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE)
+                .without(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
     }
 
     @GetMapping
-    public ResponseEntity<Object> getOrders() {
-        LOGGER.info("get all orders");
-        List<OrderResponse> orderResponses = orderService.getOrders();
-        LOGGER.info("sent get all orders response");
-        return new ResponseEntity<>(orderResponses, HttpStatus.OK);
+    public ResponseEntity<Object> getOrders(@Valid OrderSearchRequest orderSearchRequest) {
+        LOGGER.info("get orders for: {}", orderSearchRequest);
+        OrderPageResponse orderPageResponse = orderService.getOrders(orderSearchRequest);
+        LOGGER.info("sent get orders response");
+        return new ResponseEntity<>(orderPageResponse, HttpStatus.OK);
+    }
+
+    @GetMapping(produces = NDJSON_MEDIA_TYPE)
+    public void streamOrders(@Valid OrderSearchRequest orderSearchRequest, HttpServletResponse response) throws IOException {
+        LOGGER.info("stream orders for: {}", orderSearchRequest);
+        response.setContentType(NDJSON_MEDIA_TYPE);
+        OutputStream outputStream = response.getOutputStream();
+        try {
+            orderService.streamOrders(orderSearchRequest, orderResponse -> {
+                try {
+                    ndjsonWriter.writeValue(outputStream, orderResponse);
+                    outputStream.write('\n');
+                } catch (IOException exception) {
+                    throw new UncheckedIOException(exception);
+                }
+            });
+        } catch (UncheckedIOException exception) {
+            throw exception.getCause();
+        }
+        outputStream.flush();
+        LOGGER.info("sent stream orders response");
     }
 
     @PostMapping
-    public ResponseEntity<Object> addOrder(@Valid @RequestBody OrderRequest orderRequest) {
-        LOGGER.info("adding new order: {}", orderRequest);
-        OrderResponse orderResponse = orderService.addOrder(orderRequest);
+    public ResponseEntity<Object> addOrder(@Valid @RequestBody OrderRequest orderRequest,
+                                           @RequestHeader(value = IDEMPOTENCY_KEY_HEADER, required = false) String idempotencyKey) {
+        LOGGER.info("adding new order of user: {} with {} products and idempotency key: {}", orderRequest.getUserId(),
+                orderRequest.getProducts().size(), idempotencyKey);
+        if (asyncIntake) {
+            OrderIntakeResponse orderIntakeResponse = orderIntakeHandler.accept(orderRequest, idempotencyKey);
+            HttpHeaders headers = new HttpHeaders();
+            headers.setLocation(ServletUriComponentsBuilder.fromCurrentContextPath()
+                    .path("/orders/intake/{trackingId}").buildAndExpand(orderIntakeResponse.getTrackingId()).toUri());
+            LOGGER.info("sent accepted new order response with tracking id: {}", orderIntakeResponse.getTrackingId());
+            return new ResponseEntity<>(orderIntakeResponse, headers, HttpStatus.ACCEPTED);
+        }
+        OrderResponse orderResponse = orderService.addOrder(orderRequest, idempotencyKey);
         LOGGER.info("sent add new order response");
         return new ResponseEntity<>(orderResponse, HttpStatus.CREATED);
     }
 
+    @PostMapping("/batch")
+    public ResponseEntity<Object> addOrders(@Valid @RequestBody BatchOrderRequest batchOrderRequest) {
+        LOGGER.info("adding {} new orders", batchOrderRequest.getOrders().size());
+        BatchResponse batchResponse = orderService.addOrders(batchOrderRequest);
+        LOGGER.info("sent add new orders response");
+        return new ResponseEntity<>(batchResponse, HttpStatus.OK);
+    }
+
+    @GetMapping("/intake/{trackingId}")
+    public ResponseEntity<Object> getOrderIntake(@PathVariable("trackingId") String trackingId) {
+        LOGGER.info("get order intake for tracking id: {}", trackingId);
+        OrderIntakeResponse orderIntakeResponse = orderIntakeHandler.getIntake(trackingId);
+        LOGGER.info("sent get order intake response");
+        return new ResponseEntity<>(orderIntakeResponse, HttpStatus.OK);
+    }
+
     @GetMapping("/{id}")
-    public ResponseEntity<Object> getOrder(@PathVariable("id") Long id) {
+    public ResponseEntity<Object> getOrder(@PathVariable("id") Long id, WebRequest webRequest) {
         LOGGER.info("get order for id: {}", id);
         OrderResponse orderResponse = orderService.getOrder(id);
+        // the version changes with every change of the order, a client holding it gets 304 without a body
+        String eTag = String.valueOf(orderResponse.getVersion());
+        if (webRequest.checkNotModified(eTag)) {
+            LOGGER.info("sent not modified get order response");
+            return null;
+        }
         LOGGER.info("sent get order response");
-        return new ResponseEntity<>(orderResponse, HttpStatus.OK);
+        return ResponseEntity.ok().eTag(eTag).body(orderResponse);
     }
 
     @PutMapping("/{id}")
@@ -72,6 +160,14 @@ public class OrderController {
         return new ResponseEntity<>("Successfully deleted", HttpStatus.NO_CONTENT);
     }
 
+    @PutMapping("/status/batch")
+    public ResponseEntity<Object> updateOrderStatuses(@Valid @RequestBody BatchOrderStatusRequest batchOrderStatusRequest) {
+        LOGGER.info("update statuses of {} orders", batchOrderStatusRequest.getOrders().size());
+        BatchResponse batchResponse = orderService.updateOrderStatuses(batchOrderStatusRequest);
+        LOGGER.info("sent update order statuses response");
+        return new ResponseEntity<>(batchResponse, HttpStatus.OK);
+    }
+
     @PutMapping("/{id}/status/{status}")
     public ResponseEntity<Object> updateOrderStatus(@PathVariable("id") Long id, @PathVariable OrderStatus status) {
         LOGGER.info("update order for id: {} with status: {}", id, status);
@@ -2,12 +2,15 @@ package com.laan.orderservice.controller.exception;
 
 import com.laan.orderservice.exception.*;
 import com.laan.orderservice.response.ErrorResponse;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.validation.BindException;
 import org.springframework.validation.FieldError;
-import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.ControllerAdvice;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 
@@ -18,33 +21,69 @@ public class ExceptionController {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(ExceptionController.class);
 
-    @ExceptionHandler(value = {UserNotFoundException.class, ProductNotFoundException.class, OrderNotFoundException.class})
+    private static final String RETRY_AFTER_SECONDS = "1";
+
+    static final String EXCEPTIONS_METRIC_NAME = "order-service.exceptions";
+
+    private final MeterRegistry meterRegistry;
+
+    @Autowired
+    public ExceptionController(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    @ExceptionHandler(value = {UserNotFoundException.class, ProductNotFoundException.class, OrderNotFoundException.class,
+            OrderIntakeNotFoundException.class})
     public ResponseEntity<Object> handleNotFoundExceptions(RuntimeException exception) {
         LOGGER.error("Not found exception occurred. {}", exception.getMessage());
-        return new ResponseEntity<>(createErrorResponse(exception.getMessage()), HttpStatus.NOT_FOUND);
+        return createResponse(exception, exception.getMessage(), HttpStatus.NOT_FOUND);
     }
 
     @ExceptionHandler(value = {QuantityMismatchException.class, InvalidOrderStatusException.class})
     public ResponseEntity<Object> handleOrderServiceExceptions(RuntimeException exception) {
         LOGGER.error("Order service exception occurred. {}", exception.getMessage());
-        return new ResponseEntity<>(createErrorResponse(exception.getMessage()), HttpStatus.BAD_REQUEST);
+        return createResponse(exception, exception.getMessage(), HttpStatus.BAD_REQUEST);
+    }
+
+    @ExceptionHandler(value = {IdempotencyKeyMismatchException.class})
+    public ResponseEntity<Object> handleIdempotencyKeyMismatchException(RuntimeException exception) {
+        LOGGER.error("Idempotency key mismatch occurred. {}", exception.getMessage());
+        return createResponse(exception, exception.getMessage(), HttpStatus.UNPROCESSABLE_ENTITY);
     }
 
-    @ExceptionHandler(value = {MethodArgumentNotValidException.class})
-    public ResponseEntity<Object> handleMethodArgumentNotValidException(MethodArgumentNotValidException exception) {
+    @ExceptionHandler(value = {IntakeOverloadedException.class})
+    public ResponseEntity<Object> handleIntakeOverloadedException(RuntimeException exception) {
+        LOGGER.warn("Order intake overloaded. {}", exception.getMessage());
+        HttpHeaders headers = new HttpHeaders();
+        headers.set(HttpHeaders.RETRY_AFTER, RETRY_AFTER_SECONDS);
+        return createResponse(exception, exception.getMessage(), headers, HttpStatus.SERVICE_UNAVAILABLE);
+    }
+
+    @ExceptionHandler(value = {BindException.class})
+    public ResponseEntity<Object> handleBindException(BindException exception) {
         StringBuilder stringBuilder = new StringBuilder();
         List<FieldError> fieldErrors = exception.getBindingResult().getFieldErrors();
         for (FieldError fieldError : fieldErrors) {
             stringBuilder.append(fieldError.getField()).append(": ").append(fieldError.getDefaultMessage()).append(" ");
         }
-        LOGGER.error("MethodArgumentNotValidException occurred. {}", stringBuilder);
-        return new ResponseEntity<>(createErrorResponse(stringBuilder.toString()), HttpStatus.BAD_REQUEST);
+        LOGGER.error("{} occurred. {}", exception.getClass().getSimpleName(), stringBuilder);
+        return createResponse(exception, stringBuilder.toString(), HttpStatus.BAD_REQUEST);
     }
 
     @ExceptionHandler(value = {Exception.class})
     public ResponseEntity<Object> handleException(Exception exception) {
         LOGGER.error("Exception occurred.", exception);
-        return new ResponseEntity<>(createErrorResponse(exception.getLocalizedMessage()), HttpStatus.BAD_REQUEST);
+        return createResponse(exception, exception.getLocalizedMessage(), HttpStatus.BAD_REQUEST);
+    }
+
+    private ResponseEntity<Object> createResponse(Exception exception, String message, HttpStatus status) {
+        return createResponse(exception, message, new HttpHeaders(), status);
+    }
+
+    private ResponseEntity<Object> createResponse(Exception exception, String message, HttpHeaders headers, HttpStatus status) {
+        meterRegistry.counter(EXCEPTIONS_METRIC_NAME, "exception", exception.getClass().getSimpleName(),
+                "status", String.valueOf(status.value())).increment();
+        return new ResponseEntity<>(createErrorResponse(message), headers, status);
     }
 
     private ErrorResponse createErrorResponse(String message) {
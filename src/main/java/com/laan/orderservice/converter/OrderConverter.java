@@ -2,12 +2,17 @@ package com.laan.orderservice.converter;
 
 import com.laan.orderservice.entity.OrderEntity;
 import com.laan.orderservice.entity.OrderProductEntity;
+import com.laan.orderservice.event.OrderStatusChangedEvent;
+import com.laan.orderservice.projection.OrderLineProjection;
+import com.laan.orderservice.request.ProductRequest;
 import com.laan.orderservice.response.OrderResponse;
 import com.laan.orderservice.response.ProductResponse;
 import org.springframework.stereotype.Component;
 
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 /**
  * Utility class to convert dto objects to entities and vice versa
@@ -27,6 +32,18 @@ public class OrderConverter {
         return orderResponse;
     }
 
+    public OrderStatusChangedEvent convertEntityToStatusChangedEvent(OrderEntity orderEntity) {
+        OrderStatusChangedEvent event = new OrderStatusChangedEvent();
+        event.setOrderId(orderEntity.getId());
+        // user id is read from the lazy reference without loading the user
+        event.setUserId(orderEntity.getUserEntity().getId());
+        event.setStatus(orderEntity.getStatus());
+        event.setTotalPrice(orderEntity.getTotalPrice());
+        event.setVersion(orderEntity.getVersion());
+        event.setOccurredAt(System.currentTimeMillis());
+        return event;
+    }
+
     public OrderResponse convertEntityToResponse(OrderEntity orderEntity, List<OrderProductEntity> orderProductEntities) {
         OrderResponse orderResponse = new OrderResponse();
         orderResponse.setId(orderEntity.getId());
@@ -54,6 +71,33 @@ public class OrderConverter {
         return productResponses;
     }
 
+    /**
+     * Builds the orders with their products from the joined order lines, keeping the order of the rows
+     * @param orderLineProjections rows of the orders joined with their lines
+     * @return OrderResponses with products
+     */
+    public List<OrderResponse> convertProjectionsToResponses(List<OrderLineProjection> orderLineProjections) {
+        Map<Long, OrderResponse> orderResponses = new LinkedHashMap<>();
+        for (OrderLineProjection orderLineProjection : orderLineProjections) {
+            OrderResponse orderResponse = orderResponses.computeIfAbsent(orderLineProjection.getOrderId(), orderId -> {
+                OrderResponse newOrderResponse = new OrderResponse();
+                newOrderResponse.setId(orderLineProjection.getOrderId());
+                newOrderResponse.setVersion(orderLineProjection.getVersion());
+                newOrderResponse.setStatus(orderLineProjection.getStatus());
+                newOrderResponse.setTotalPrice(orderLineProjection.getTotalPrice());
+                newOrderResponse.setProducts(new ArrayList<>());
+                return newOrderResponse;
+            });
+            if (orderLineProjection.getProductId() != null) {
+                ProductResponse productResponse = new ProductResponse();
+                productResponse.setId(orderLineProjection.getProductId());
+                productResponse.setQuantity(orderLineProjection.getQuantity());
+                orderResponse.getProducts().add(productResponse);
+            }
+        }
+        return new ArrayList<>(orderResponses.values());
+    }
+
     public List<OrderResponse> convertEntitiesToResponses(List<OrderEntity> orderEntities) {
         List<OrderResponse> orderResponses = new ArrayList<>();
         for (OrderEntity orderEntity : orderEntities) {
@@ -62,4 +106,17 @@ public class OrderConverter {
         }
         return orderResponses;
     }
+
+    /**
+     * Sums up the requested quantities of each product, so that a product listed more than once is counted together
+     * @param productRequests requested products
+     * @return requested quantities keyed by product id, in request order
+     */
+    public Map<Long, Integer> convertRequestsToQuantities(List<ProductRequest> productRequests) {
+        Map<Long, Integer> quantities = new LinkedHashMap<>();
+        for (ProductRequest productRequest : productRequests) {
+            quantities.merge(productRequest.getId(), productRequest.getQuantity(), Integer::sum);
+        }
+        return quantities;
+    }
 }
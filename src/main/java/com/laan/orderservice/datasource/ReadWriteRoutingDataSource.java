@@ -0,0 +1,82 @@
+package com.laan.orderservice.datasource;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Hands out connections of the replicas, in turn, to read only transactions, and connections of the primary to
+ * everything else. Reads of the current thread go to the primary as well while primary reads are started, so that
+ * a client reads its own recent writes. Must be wrapped in a LazyConnectionDataSourceProxy, which takes the
+ * connection once the transaction is known to be read only.
+ *
+ * @author Lalanke Athauda
+ */
+public class ReadWriteRoutingDataSource extends AbstractRoutingDataSource implements Closeable {
+
+    private static final String PRIMARY = "primary";
+
+    private static final String REPLICA = "replica-";
+
+    private static final ThreadLocal<Boolean> PRIMARY_READS = new ThreadLocal<>();
+
+    private final List<String> replicaKeys = new ArrayList<>();
+
+    private final List<HikariDataSource> replicaDataSources;
+
+    private final AtomicInteger nextReplica = new AtomicInteger();
+
+    public ReadWriteRoutingDataSource(DataSource primaryDataSource, List<HikariDataSource> replicaDataSources) {
+        this.replicaDataSources = replicaDataSources;
+        Map<Object, Object> targetDataSources = new HashMap<>();
+        targetDataSources.put(PRIMARY, primaryDataSource);
+        for (int i = 0; i < replicaDataSources.size(); i++) {
+            replicaKeys.add(REPLICA + i);
+            targetDataSources.put(REPLICA + i, replicaDataSources.get(i));
+        }
+        setTargetDataSources(targetDataSources);
+        setDefaultTargetDataSource(primaryDataSource);
+    }
+
+    /**
+     * Sends the reads of the current thread to the primary until stopped
+     */
+    public static void startPrimaryReads() {
+        PRIMARY_READS.set(Boolean.TRUE);
+    }
+
+    public static void stopPrimaryReads() {
+        PRIMARY_READS.remove();
+    }
+
+    public List<HikariDataSource> getReplicaDataSources() {
+        return replicaDataSources;
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        if (replicaKeys.isEmpty() || !TransactionSynchronizationManager.isCurrentTransactionReadOnly()
+                || PRIMARY_READS.get() != null) {
+            return PRIMARY;
+        }
+        return replicaKeys.get(Math.floorMod(nextReplica.getAndIncrement(), replicaKeys.size()));
+    }
+
+    /**
+     * Closes the replica pools, the primary pool is closed as a bean of its own
+     */
+    @Override
+    public void close() {
+        for (HikariDataSource replicaDataSource : replicaDataSources) {
+            replicaDataSource.close();
+        }
+    }
+}
@@ -1,8 +1,11 @@
 package com.laan.orderservice.entity;
 
 import com.laan.orderservice.enums.OrderStatus;
+import com.laan.orderservice.id.BlockIdGenerator;
 import lombok.Getter;
 import lombok.Setter;
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
 
 import javax.persistence.*;
 import java.io.Serializable;
@@ -16,10 +19,12 @@ import java.util.Date;
 public class OrderEntity implements Serializable {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.AUTO)
+    @GeneratedValue(generator = "order_id")
+    @GenericGenerator(name = "order_id", strategy = "com.laan.orderservice.id.BlockIdGenerator",
+            parameters = @Parameter(name = BlockIdGenerator.SEQUENCE_NAME_PARAMETER, value = "order"))
     private Long id;
 
-    @Column(name = "total_price")
+    @Column(name = "total_price", precision = 12, scale = 2)
     private BigDecimal totalPrice;
 
     @Column(name = "status")
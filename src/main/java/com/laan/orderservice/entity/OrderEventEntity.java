@@ -0,0 +1,42 @@
+package com.laan.orderservice.entity;
+
+import com.laan.orderservice.id.BlockIdGenerator;
+import lombok.Getter;
+import lombok.Setter;
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
+
+import javax.persistence.*;
+import java.util.Date;
+
+@Entity
+@Table(name = "order_event_outbox")
+@Getter
+@Setter
+public class OrderEventEntity {
+
+    @Id
+    @GeneratedValue(generator = "order_event_outbox_id")
+    @GenericGenerator(name = "order_event_outbox_id", strategy = "com.laan.orderservice.id.BlockIdGenerator",
+            parameters = @Parameter(name = BlockIdGenerator.SEQUENCE_NAME_PARAMETER, value = "order_event_outbox"))
+    private Long id;
+
+    @Column(name = "order_id")
+    private Long orderId;
+
+    @Column(name = "event_type")
+    private String eventType;
+
+    @Column(name = "schema_version")
+    private Integer schemaVersion;
+
+    @Column(name = "payload")
+    private String payload;
+
+    @Column(name = "correlation_id")
+    private String correlationId;
+
+    @Column(name = "created_timestamp")
+    private Date createdTimestamp;
+
+}
@@ -1,7 +1,10 @@
 package com.laan.orderservice.entity;
 
+import com.laan.orderservice.id.BlockIdGenerator;
 import lombok.Getter;
 import lombok.Setter;
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
 
 import javax.persistence.*;
 import java.math.BigDecimal;
@@ -14,7 +17,9 @@ import java.util.Date;
 public class OrderProductEntity {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.AUTO)
+    @GeneratedValue(generator = "order_product_id")
+    @GenericGenerator(name = "order_product_id", strategy = "com.laan.orderservice.id.BlockIdGenerator",
+            parameters = @Parameter(name = BlockIdGenerator.SEQUENCE_NAME_PARAMETER, value = "order_product"))
     private Long id;
 
     @ManyToOne(fetch = FetchType.LAZY)
@@ -25,13 +30,13 @@ public class OrderProductEntity {
     @JoinColumn(name = "product_id")
     private ProductEntity productEntity;
 
-    @Column(name = "unit_price")
+    @Column(name = "unit_price", precision = 12, scale = 2)
     private BigDecimal unitPrice;
 
     @Column(name = "quantity")
     private Integer quantity;
 
-    @Column(name = "price")
+    @Column(name = "price", precision = 12, scale = 2)
     private BigDecimal price;
 
     @Column(name = "created_timestamp")
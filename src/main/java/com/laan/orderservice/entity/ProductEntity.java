@@ -1,8 +1,11 @@
 package com.laan.orderservice.entity;
 
 import com.laan.orderservice.enums.ProductType;
+import com.laan.orderservice.id.BlockIdGenerator;
 import lombok.Getter;
 import lombok.Setter;
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
 
 import javax.persistence.*;
 import java.math.BigDecimal;
@@ -13,14 +16,16 @@ import java.math.BigDecimal;
 @Setter
 public class ProductEntity {
     @Id
-    @GeneratedValue(strategy = GenerationType.AUTO)
+    @GeneratedValue(generator = "product_id")
+    @GenericGenerator(name = "product_id", strategy = "com.laan.orderservice.id.BlockIdGenerator",
+            parameters = @Parameter(name = BlockIdGenerator.SEQUENCE_NAME_PARAMETER, value = "product"))
     private Long id;
 
     @Column(name = "type")
     @Enumerated(EnumType.STRING)
     private ProductType type;
 
-    @Column(name = "unit_price")
+    @Column(name = "unit_price", precision = 12, scale = 2)
     private BigDecimal unitPrice;
 
     @Column(name = "quantity")
@@ -1,7 +1,10 @@
 package com.laan.orderservice.entity;
 
+import com.laan.orderservice.id.BlockIdGenerator;
 import lombok.Getter;
 import lombok.Setter;
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
 
 import javax.persistence.*;
 
@@ -11,7 +14,9 @@ import javax.persistence.*;
 @Setter
 public class UserEntity {
     @Id
-    @GeneratedValue(strategy = GenerationType.AUTO)
+    @GeneratedValue(generator = "user_id")
+    @GenericGenerator(name = "user_id", strategy = "com.laan.orderservice.id.BlockIdGenerator",
+            parameters = @Parameter(name = BlockIdGenerator.SEQUENCE_NAME_PARAMETER, value = "user"))
     private Long id;
 
     private String name;
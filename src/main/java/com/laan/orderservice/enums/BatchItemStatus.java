@@ -0,0 +1,6 @@
+package com.laan.orderservice.enums;
+
+public enum BatchItemStatus {
+
+    CREATED, UPDATED, NOT_FOUND, REJECTED
+}
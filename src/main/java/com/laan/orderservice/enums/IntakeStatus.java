@@ -0,0 +1,6 @@
+package com.laan.orderservice.enums;
+
+public enum IntakeStatus {
+
+    ACCEPTED, PROCESSING, CREATED, REJECTED
+}
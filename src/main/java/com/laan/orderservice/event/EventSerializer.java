@@ -0,0 +1,17 @@
+package com.laan.orderservice.event;
+
+/**
+ * Encodes events sent to the queue and decodes them back.
+ * Implementations are thread safe and meant to be shared.
+ *
+ * @param <T> event type
+ */
+public interface EventSerializer<T> {
+
+    String serialize(T event);
+
+    T deserialize(String payload);
+
+    int schemaVersion();
+
+}
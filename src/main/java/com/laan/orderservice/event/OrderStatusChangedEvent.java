@@ -0,0 +1,45 @@
+package com.laan.orderservice.event;
+
+import com.laan.orderservice.enums.OrderStatus;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.ToString;
+
+import java.math.BigDecimal;
+
+/**
+ * Event sent to the queue when the status of an order changes.
+ * Consumers should read schemaVersion first and ignore fields they do not know.
+ *
+ * @author Lalanke Athauda
+ */
+@Getter
+@Setter
+@ToString
+public class OrderStatusChangedEvent {
+
+    public static final String EVENT_TYPE = "ORDER_STATUS_CHANGED";
+
+    public static final int SCHEMA_VERSION = 1;
+
+    private int schemaVersion = SCHEMA_VERSION;
+
+    private Long orderId;
+
+    private Long userId;
+
+    private OrderStatus status;
+
+    private BigDecimal totalPrice;
+
+    /**
+     * version of the order after the change
+     */
+    private Long version;
+
+    /**
+     * epoch milliseconds of the change
+     */
+    private long occurredAt;
+
+}
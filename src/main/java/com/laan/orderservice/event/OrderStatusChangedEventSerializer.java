@@ -0,0 +1,60 @@
+package com.laan.orderservice.event;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import org.springframework.stereotype.Component;
+
+/**
+ * Compact JSON encoding of {@link OrderStatusChangedEvent}. Writer and reader are built once and reused,
+ * so encoding allocates little more than the resulting string.
+ *
+ * @author Lalanke Athauda
+ */
+@Component
+public class OrderStatusChangedEventSerializer implements EventSerializer<OrderStatusChangedEvent> {
+
+    private final ObjectWriter writer;
+
+    private final ObjectReader reader;
+
+    public OrderStatusChangedEventSerializer() {
+        ObjectMapper objectMapper = new ObjectMapper()
+                .setSerializationInclusion(JsonInclude.Include.NON_NULL)
+                // newer minor versions may add fields, older consumers skip them
+                .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+        this.writer = objectMapper.writerFor(OrderStatusChangedEvent.class);
+        this.reader = objectMapper.readerFor(OrderStatusChangedEvent.class);
+    }
+
+    @Override
+    public String serialize(OrderStatusChangedEvent event) {
+        try {
+            return writer.writeValueAsString(event);
+        } catch (JsonProcessingException exception) {
+            throw new IllegalArgumentException("Order status changed event cannot be serialized", exception);
+        }
+    }
+
+    @Override
+    public OrderStatusChangedEvent deserialize(String payload) {
+        OrderStatusChangedEvent event;
+        try {
+            event = reader.readValue(payload);
+        } catch (JsonProcessingException exception) {
+            throw new IllegalArgumentException("Order status changed event cannot be deserialized", exception);
+        }
+        if (event.getSchemaVersion() != OrderStatusChangedEvent.SCHEMA_VERSION) {
+            throw new IllegalArgumentException("Unsupported schema version: " + event.getSchemaVersion() + " of order status changed event");
+        }
+        return event;
+    }
+
+    @Override
+    public int schemaVersion() {
+        return OrderStatusChangedEvent.SCHEMA_VERSION;
+    }
+}
@@ -0,0 +1,8 @@
+package com.laan.orderservice.exception;
+
+public class IntakeOverloadedException extends RuntimeException {
+
+    public IntakeOverloadedException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,8 @@
+package com.laan.orderservice.exception;
+
+public class OrderIntakeNotFoundException extends RuntimeException {
+
+    public OrderIntakeNotFoundException(String message) {
+        super(message);
+    }
+}
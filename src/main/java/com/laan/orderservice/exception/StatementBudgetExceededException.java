@@ -0,0 +1,8 @@
+package com.laan.orderservice.exception;
+
+public class StatementBudgetExceededException extends RuntimeException {
+
+    public StatementBudgetExceededException(String message) {
+        super(message);
+    }
+}
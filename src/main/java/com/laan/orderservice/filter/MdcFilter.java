@@ -9,21 +9,36 @@ import javax.servlet.ServletException;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 import java.io.IOException;
-import java.util.UUID;
+import java.util.regex.Pattern;
 
+/**
+ * Puts the id of the request in the MDC and echoes it in the X-Request-Id response header.
+ * The X-Request-Id of the client is kept when it is a plain token, otherwise a new id is generated.
+ */
 @Component
 public class MdcFilter extends OncePerRequestFilter {
 
-    private static final String MDC_KEY = "mdcId";
+    public static final String MDC_KEY = "mdcId";
+
+    public static final String REQUEST_ID_HEADER = "X-Request-Id";
+
+    // ids from clients end up in logs and message headers, so only short plain tokens are kept
+    private static final Pattern VALID_REQUEST_ID = Pattern.compile("[A-Za-z0-9._-]{1,64}");
 
     @Override
     protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain) throws ServletException, IOException {
-        MDC.put(MDC_KEY, get32LengthId());
-        chain.doFilter(request, response);
-        MDC.remove(MDC_KEY);
-    }
-
-    private String get32LengthId() {
-        return UUID.randomUUID().toString().replace("-", "");
+        String requestId = request.getHeader(REQUEST_ID_HEADER);
+        if (requestId == null || !VALID_REQUEST_ID.matcher(requestId).matches()) {
+            requestId = RequestIdGenerator.next();
+        }
+        MDC.put(MDC_KEY, requestId);
+        // set before the response is committed by the handler
+        response.setHeader(REQUEST_ID_HEADER, requestId);
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            // a failed request must not leave its id on a pooled worker thread
+            MDC.remove(MDC_KEY);
+        }
     }
 }
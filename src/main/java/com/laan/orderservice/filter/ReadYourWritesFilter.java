@@ -0,0 +1,74 @@
+package com.laan.orderservice.filter;
+
+import com.laan.orderservice.datasource.ReadWriteRoutingDataSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseCookie;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.WebUtils;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Sends the reads of a client to the primary for a while after its last write, longer than the replicas take to
+ * catch up. A write answers with a cookie living that long, and the reads of requests carrying it use the primary.
+ *
+ * @author Lalanke Athauda
+ */
+@Component
+public class ReadYourWritesFilter extends OncePerRequestFilter {
+
+    static final String COOKIE_NAME = "order-service-primary-reads";
+
+    private static final Set<String> READ_METHODS = Set.of("GET", "HEAD", "OPTIONS");
+
+    private final boolean replicated;
+
+    private final Duration window;
+
+    @Autowired
+    public ReadYourWritesFilter(@Value("${order-service.datasource.replica-urls}") List<String> replicaUrls,
+                                @Value("${order-service.datasource.read-your-writes-window}") Duration window) {
+        this.replicated = !replicaUrls.isEmpty();
+        this.window = window;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !replicated;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain) throws ServletException, IOException {
+        boolean write = !READ_METHODS.contains(request.getMethod());
+        if (write) {
+            // set before the response is committed, a failed write only keeps the reads on the primary a while
+            String path = request.getContextPath().isEmpty() ? "/" : request.getContextPath();
+            response.addHeader(HttpHeaders.SET_COOKIE, ResponseCookie.from(COOKIE_NAME, "1")
+                    .maxAge(window)
+                    .path(path)
+                    .httpOnly(true)
+                    .build().toString());
+        }
+        if (!write && WebUtils.getCookie(request, COOKIE_NAME) == null) {
+            chain.doFilter(request, response);
+            return;
+        }
+
+        ReadWriteRoutingDataSource.startPrimaryReads();
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            ReadWriteRoutingDataSource.stopPrimaryReads();
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package com.laan.orderservice.filter;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Generates 32 hex character request ids from the random generator of the current thread, which neither blocks
+ * nor contends like the SecureRandom of UUID.randomUUID. The ids only correlate logs and messages, they need to be
+ * unique in practice, not unpredictable.
+ *
+ * @author Lalanke Athauda
+ */
+public final class RequestIdGenerator {
+
+    private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+
+    private RequestIdGenerator() {
+    }
+
+    public static String next() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        char[] id = new char[32];
+        writeHex(random.nextLong(), id, 0);
+        writeHex(random.nextLong(), id, 16);
+        return new String(id);
+    }
+
+    private static void writeHex(long value, char[] id, int offset) {
+        for (int i = offset + 15; i >= offset; i--) {
+            id[i] = HEX_DIGITS[(int) value & 0xf];
+            value >>>= 4;
+        }
+    }
+}
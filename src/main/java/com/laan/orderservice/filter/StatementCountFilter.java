@@ -0,0 +1,57 @@
+package com.laan.orderservice.filter;
+
+import com.laan.orderservice.metrics.StatementCounter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+
+/**
+ * Records the Hibernate statements of each request in order-service.db.statements, tagged like http.server.requests
+ *
+ * @author Lalanke Athauda
+ */
+@Component
+public class StatementCountFilter extends OncePerRequestFilter {
+
+    static final String METRIC_NAME = "order-service.db.statements";
+
+    private static final String UNKNOWN_URI = "UNKNOWN";
+
+    private final StatementCounter statementCounter;
+
+    private final MeterRegistry meterRegistry;
+
+    @Autowired
+    public StatementCountFilter(StatementCounter statementCounter, MeterRegistry meterRegistry) {
+        this.statementCounter = statementCounter;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain) throws ServletException, IOException {
+        statementCounter.start();
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            int statements = statementCounter.stop();
+            // the matched pattern keeps the uri tag bounded, ids in the path would create a meter per order
+            Object uri = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+            DistributionSummary.builder(METRIC_NAME)
+                    .baseUnit("statements")
+                    .tag("method", request.getMethod())
+                    .tag("uri", uri == null ? UNKNOWN_URI : uri.toString())
+                    .serviceLevelObjectives(1, 2, 5, 10, 20, 50, 100)
+                    .register(meterRegistry)
+                    .record(statements);
+        }
+    }
+}
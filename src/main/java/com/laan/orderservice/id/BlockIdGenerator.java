@@ -0,0 +1,47 @@
+package com.laan.orderservice.id;
+
+import org.hibernate.MappingException;
+import org.hibernate.engine.config.spi.ConfigurationService;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.id.IdentifierGenerator;
+import org.hibernate.internal.util.config.ConfigurationHelper;
+import org.hibernate.service.ServiceRegistry;
+import org.hibernate.type.Type;
+
+import java.io.Serializable;
+import java.util.Properties;
+
+/**
+ * Hibernate id generator taking ids from the {@link IdBlockAllocator} handed over in the Hibernate settings.
+ * Ids are known on persist, so inserts are still batched.
+ *
+ * @author Lalanke Athauda
+ */
+public class BlockIdGenerator implements IdentifierGenerator {
+
+    public static final String ALLOCATOR_SETTING = "order-service.id.block-allocator";
+
+    public static final String SEQUENCE_NAME_PARAMETER = "sequence_name";
+
+    private IdBlockAllocator idBlockAllocator;
+
+    private String sequenceName;
+
+    @Override
+    public void configure(Type type, Properties params, ServiceRegistry serviceRegistry) {
+        sequenceName = ConfigurationHelper.getString(SEQUENCE_NAME_PARAMETER, params);
+        if (sequenceName == null) {
+            throw new MappingException(SEQUENCE_NAME_PARAMETER + " is mandatory for " + BlockIdGenerator.class.getSimpleName());
+        }
+        Object allocator = serviceRegistry.getService(ConfigurationService.class).getSettings().get(ALLOCATOR_SETTING);
+        if (!(allocator instanceof IdBlockAllocator)) {
+            throw new MappingException(ALLOCATOR_SETTING + " must be set to an " + IdBlockAllocator.class.getSimpleName());
+        }
+        idBlockAllocator = (IdBlockAllocator) allocator;
+    }
+
+    @Override
+    public Serializable generate(SharedSessionContractImplementor session, Object object) {
+        return idBlockAllocator.nextId(sequenceName);
+    }
+}
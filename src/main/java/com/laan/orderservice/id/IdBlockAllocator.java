@@ -0,0 +1,102 @@
+package com.laan.orderservice.id;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Hands out ids from blocks reserved in the id_generator table, so that the database is visited once per block
+ * instead of once per insert. Blocks are reserved over a connection pool of its own: an order transaction may hold
+ * locks and the last free connection of the main pool while it waits for the next block.
+ * <p>
+ * A sequence is named after the table it gives ids to. A block starts above the highest id of that table, so rows
+ * inserted without the allocator, e.g. through AUTO_INCREMENT, are skipped. A row inserted that way while a block is
+ * in use can still take one of its ids, so every writer of a running database takes its ids from id_generator.
+ *
+ * @author Lalanke Athauda
+ */
+public class IdBlockAllocator implements AutoCloseable {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(IdBlockAllocator.class);
+
+    private final HikariDataSource dataSource;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final int blockSize;
+
+    private final ConcurrentMap<String, IdBlock> idBlocks = new ConcurrentHashMap<>();
+
+    public IdBlockAllocator(HikariDataSource dataSource, int blockSize) {
+        this.dataSource = dataSource;
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.transactionTemplate = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+        this.blockSize = blockSize;
+    }
+
+    /**
+     * Gets the next id of the sequence, reserving a new block when the current one is used up
+     * @param sequenceName sequence name in the id_generator table
+     * @return unused id
+     */
+    public long nextId(String sequenceName) {
+        return idBlocks.computeIfAbsent(sequenceName, IdBlock::new).nextId();
+    }
+
+    private long reserveBlock(String sequenceName) {
+        Long firstId = transactionTemplate.execute(status -> {
+            Long nextValue = jdbcTemplate.queryForObject("select next_val from id_generator where sequence_name = ? for update",
+                    Long.class, sequenceName);
+            // the sequence name comes from the mappings, not from a request
+            Long maxId = jdbcTemplate.queryForObject("select max(id) from `" + sequenceName + "`", Long.class);
+            long firstValue = maxId == null ? nextValue : Math.max(nextValue, maxId + 1);
+            jdbcTemplate.update("update id_generator set next_val = ? where sequence_name = ?", firstValue + blockSize, sequenceName);
+            return firstValue;
+        });
+        LOGGER.debug("reserved ids from: {} for sequence: {}", firstId, sequenceName);
+        return firstId;
+    }
+
+    @Override
+    public void close() {
+        dataSource.close();
+    }
+
+    private final class IdBlock {
+
+        private final String sequenceName;
+
+        // a lock rather than a monitor: a block is reserved over JDBC while it is held, which would pin a virtual thread
+        private final ReentrantLock lock = new ReentrantLock();
+
+        private long nextId;
+
+        private long endId;
+
+        private IdBlock(String sequenceName) {
+            this.sequenceName = sequenceName;
+        }
+
+        private long nextId() {
+            lock.lock();
+            try {
+                if (nextId == endId) {
+                    nextId = reserveBlock(sequenceName);
+                    endId = nextId + blockSize;
+                }
+                return nextId++;
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package com.laan.orderservice.idempotency;
+
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Idempotency keys of placed orders with their responses, kept in the database so that a retry reaching another
+ * instance, or arriving after the in-memory entry expired, still gets the first response.
+ * Uses plain JDBC within the transaction of the order, the rows are never needed as managed entities.
+ *
+ * @author Lalanke Athauda
+ */
+@Component
+public class IdempotencyKeyStore {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(IdempotencyKeyStore.class);
+
+    private static final String INSERT_KEY_SQL = "insert into idempotency_key (idempotency_key, request_hash, created_timestamp) values (:key, :requestHash, :createdTimestamp)";
+
+    private static final String UPDATE_RESPONSE_SQL = "update idempotency_key set response = :response where idempotency_key = :key";
+
+    private static final String SELECT_KEY_SQL = "select request_hash, response from idempotency_key where idempotency_key = :key";
+
+    private static final String DELETE_EXPIRED_KEYS_SQL = "delete from idempotency_key where created_timestamp < :before";
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+
+    private final Duration retention;
+
+    @Autowired
+    public IdempotencyKeyStore(NamedParameterJdbcTemplate jdbcTemplate, @Value("${order-service.idempotency.retention}") Duration retention) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.retention = retention;
+    }
+
+    /**
+     * Claims the key within the current transaction. A concurrent claim of the same key waits for this transaction
+     * and fails with a duplicate key once it commits.
+     */
+    void claim(String key, String requestHash) {
+        jdbcTemplate.update(INSERT_KEY_SQL, Map.of("key", key, "requestHash", requestHash, "createdTimestamp", new Date()));
+    }
+
+    void complete(String key, String response) {
+        jdbcTemplate.update(UPDATE_RESPONSE_SQL, Map.of("key", key, "response", response));
+    }
+
+    Optional<StoredResponse> find(String key) {
+        List<StoredResponse> storedResponses = jdbcTemplate.query(SELECT_KEY_SQL, Map.of("key", key),
+                (resultSet, rowNum) -> new StoredResponse(resultSet.getString("request_hash"), resultSet.getString("response")));
+        return storedResponses.stream().findFirst();
+    }
+
+    @Scheduled(fixedDelayString = "${order-service.idempotency.cleanup-interval}")
+    public void deleteExpiredKeys() {
+        int deletedKeys = jdbcTemplate.update(DELETE_EXPIRED_KEYS_SQL, Map.of("before", new Date(System.currentTimeMillis() - retention.toMillis())));
+        if (deletedKeys > 0) {
+            LOGGER.info("deleted {} expired idempotency keys", deletedKeys);
+        }
+    }
+
+    @Getter
+    @AllArgsConstructor(access = AccessLevel.PRIVATE)
+    static final class StoredResponse {
+
+        private final String requestHash;
+
+        private final String response;
+    }
+}
@@ -0,0 +1,183 @@
+package com.laan.orderservice.idempotency;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.laan.orderservice.exception.IdempotencyKeyMismatchException;
+import com.laan.orderservice.request.OrderRequest;
+import com.laan.orderservice.response.OrderResponse;
+import com.laan.orderservice.transaction.RetryingTransactionExecutor;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.stereotype.Component;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.HexFormat;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Supplier;
+
+/**
+ * Places an order once per idempotency key. Requests with a known key get the response of the first placement,
+ * from a bounded in-memory cache or else from the idempotency_key table, without validating or placing again.
+ * Concurrent requests with the same key wait for the single placement in flight and share its outcome.
+ * A key sent again with a different order is rejected.
+ *
+ * @author Lalanke Athauda
+ */
+@Component
+public class OrderIdempotencyHandler {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(OrderIdempotencyHandler.class);
+
+    public static final int MAX_KEY_LENGTH = 100;
+
+    private final IdempotencyKeyStore idempotencyKeyStore;
+
+    private final RetryingTransactionExecutor transactionExecutor;
+
+    private final ObjectMapper objectMapper;
+
+    private final Cache<String, Placement> placements;
+
+    @Autowired
+    public OrderIdempotencyHandler(IdempotencyKeyStore idempotencyKeyStore, RetryingTransactionExecutor transactionExecutor,
+                                   ObjectMapper objectMapper, MeterRegistry meterRegistry,
+                                   @Value("${order-service.idempotency.cache.maximum-size}") long maximumSize,
+                                   @Value("${order-service.idempotency.retention}") Duration retention) {
+        this.idempotencyKeyStore = idempotencyKeyStore;
+        this.transactionExecutor = transactionExecutor;
+        this.objectMapper = objectMapper;
+        this.placements = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(retention)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, placements, "idempotency.placements");
+    }
+
+    /**
+     * Places the order unless the key was already used
+     * @param key idempotency key sent by the client
+     * @param orderRequest order request
+     * @param placement places the order, runs within the transaction that stores the key
+     * @return OrderResponse of the first placement with this key
+     */
+    public OrderResponse placeOnce(String key, OrderRequest orderRequest, Supplier<OrderResponse> placement) {
+        if (key.isBlank() || key.length() > MAX_KEY_LENGTH) {
+            throw new IllegalArgumentException("Idempotency key must have 1 to " + MAX_KEY_LENGTH + " characters");
+        }
+        String requestHash = hash(orderRequest);
+        Placement newPlacement = new Placement(requestHash);
+        Placement existingPlacement = placements.asMap().putIfAbsent(key, newPlacement);
+        if (existingPlacement != null) {
+            LOGGER.info("order with idempotency key: {} is already placed or in progress", key);
+            validateRequestHash(key, existingPlacement.requestHash, requestHash);
+            return join(existingPlacement.response);
+        }
+
+        try {
+            OrderResponse orderResponse = findOrPlace(key, requestHash, placement);
+            newPlacement.response.complete(orderResponse);
+            return orderResponse;
+        } catch (RuntimeException exception) {
+            // a failed placement is not remembered, the client may retry with the same key
+            placements.asMap().remove(key, newPlacement);
+            newPlacement.response.completeExceptionally(exception);
+            throw exception;
+        }
+    }
+
+    void invalidateAll() {
+        placements.invalidateAll();
+    }
+
+    private OrderResponse findOrPlace(String key, String requestHash, Supplier<OrderResponse> placement) {
+        Optional<OrderResponse> storedOrderResponse = findStoredResponse(key, requestHash);
+        if (storedOrderResponse.isPresent()) {
+            return storedOrderResponse.get();
+        }
+        try {
+            return transactionExecutor.execute(() -> {
+                idempotencyKeyStore.claim(key, requestHash);
+                OrderResponse orderResponse = placement.get();
+                idempotencyKeyStore.complete(key, serialize(orderResponse));
+                return orderResponse;
+            });
+        } catch (DuplicateKeyException exception) {
+            // placed meanwhile through another instance
+            return findStoredResponse(key, requestHash)
+                    .orElseThrow(() -> new IllegalStateException("Order with idempotency key: " + key + " cannot be found"));
+        }
+    }
+
+    private Optional<OrderResponse> findStoredResponse(String key, String requestHash) {
+        return idempotencyKeyStore.find(key).map(storedResponse -> {
+            LOGGER.info("order with idempotency key: {} is already placed", key);
+            validateRequestHash(key, storedResponse.getRequestHash(), requestHash);
+            return deserialize(storedResponse.getResponse());
+        });
+    }
+
+    private void validateRequestHash(String key, String placedRequestHash, String requestHash) {
+        if (!placedRequestHash.equals(requestHash)) {
+            throw new IdempotencyKeyMismatchException("Idempotency key: " + key + " is already used for a different order");
+        }
+    }
+
+    private OrderResponse join(CompletableFuture<OrderResponse> response) {
+        try {
+            return response.join();
+        } catch (CompletionException exception) {
+            if (exception.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) exception.getCause();
+            }
+            throw exception;
+        }
+    }
+
+    private String hash(OrderRequest orderRequest) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(objectMapper.writeValueAsBytes(orderRequest));
+            return HexFormat.of().formatHex(digest);
+        } catch (JsonProcessingException | NoSuchAlgorithmException exception) {
+            throw new IllegalStateException("Order request cannot be hashed", exception);
+        }
+    }
+
+    private String serialize(OrderResponse orderResponse) {
+        try {
+            return objectMapper.writeValueAsString(orderResponse);
+        } catch (JsonProcessingException exception) {
+            throw new IllegalStateException("Order response cannot be serialized", exception);
+        }
+    }
+
+    private OrderResponse deserialize(String response) {
+        try {
+            return objectMapper.readValue(response, OrderResponse.class);
+        } catch (JsonProcessingException exception) {
+            throw new IllegalStateException("Stored order response cannot be read", exception);
+        }
+    }
+
+    private static final class Placement {
+
+        private final String requestHash;
+
+        private final CompletableFuture<OrderResponse> response = new CompletableFuture<>();
+
+        private Placement(String requestHash) {
+            this.requestHash = requestHash;
+        }
+    }
+}
@@ -0,0 +1,135 @@
+package com.laan.orderservice.intake;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.laan.orderservice.enums.IntakeStatus;
+import com.laan.orderservice.exception.IdempotencyKeyMismatchException;
+import com.laan.orderservice.exception.IntakeOverloadedException;
+import com.laan.orderservice.exception.OrderIntakeNotFoundException;
+import com.laan.orderservice.filter.MdcFilter;
+import com.laan.orderservice.idempotency.OrderIdempotencyHandler;
+import com.laan.orderservice.intake.OrderIntakeStore.StoredIntake;
+import com.laan.orderservice.metrics.JmsSendMetrics;
+import com.laan.orderservice.request.OrderRequest;
+import com.laan.orderservice.response.OrderIntakeResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.slf4j.MDC;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jms.JmsException;
+import org.springframework.jms.core.JmsTemplate;
+import org.springframework.stereotype.Component;
+
+import javax.jms.ConnectionFactory;
+import java.util.UUID;
+
+/**
+ * Accepts new orders for placement in the background. The request is stored as an intake and a message is sent to the
+ * intake queue, whose listeners place the waiting intakes in batches. Clients poll the intake with its tracking id.
+ * New orders are refused once too many intakes are waiting, instead of letting the backlog grow without bound.
+ *
+ * @author Lalanke Athauda
+ */
+@Component
+public class OrderIntakeHandler {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(OrderIntakeHandler.class);
+
+    private final OrderIntakeStore orderIntakeStore;
+
+    private final JmsTemplate jmsTemplate;
+
+    private final JmsSendMetrics jmsSendMetrics;
+
+    private final ObjectMapper objectMapper;
+
+    private final String queue;
+
+    private final int maxPending;
+
+    @Autowired
+    public OrderIntakeHandler(OrderIntakeStore orderIntakeStore, ConnectionFactory connectionFactory, JmsSendMetrics jmsSendMetrics,
+                              ObjectMapper objectMapper, @Value("${order-service.intake.queue}") String queue,
+                              @Value("${order-service.intake.max-pending}") int maxPending) {
+        this.orderIntakeStore = orderIntakeStore;
+        this.jmsTemplate = new JmsTemplate(connectionFactory);
+        this.jmsSendMetrics = jmsSendMetrics;
+        this.objectMapper = objectMapper;
+        this.queue = queue;
+        this.maxPending = maxPending;
+    }
+
+    /**
+     * Stores the order request for placement in the background
+     * @param orderRequest validated new order request
+     * @param idempotencyKey key sent by the client, the intake of the first request is returned for a known key
+     * @return OrderIntakeResponse with the tracking id
+     */
+    public OrderIntakeResponse accept(OrderRequest orderRequest, String idempotencyKey) {
+        if (idempotencyKey != null && (idempotencyKey.isBlank() || idempotencyKey.length() > OrderIdempotencyHandler.MAX_KEY_LENGTH)) {
+            throw new IllegalArgumentException("Idempotency key must have 1 to " + OrderIdempotencyHandler.MAX_KEY_LENGTH + " characters");
+        }
+        if (orderIntakeStore.countAccepted(maxPending) >= maxPending) {
+            throw new IntakeOverloadedException("Too many orders are waiting to be placed, retry later");
+        }
+
+        String request = serialize(orderRequest);
+        String id = UUID.randomUUID().toString();
+        String requestId = MDC.get(MdcFilter.MDC_KEY);
+        try {
+            // the request id is kept with the intake, its placement logs carry it
+            orderIntakeStore.insert(id, idempotencyKey, request, requestId);
+        } catch (DuplicateKeyException exception) {
+            StoredIntake storedIntake = orderIntakeStore.findByIdempotencyKey(idempotencyKey)
+                    .orElseThrow(() -> new IllegalStateException("Order intake with idempotency key: " + idempotencyKey + " cannot be found"));
+            if (!storedIntake.getRequest().equals(request)) {
+                throw new IdempotencyKeyMismatchException("Idempotency key: " + idempotencyKey + " is already used for a different order");
+            }
+            LOGGER.info("order with idempotency key: {} is already accepted", idempotencyKey);
+            return convertToResponse(storedIntake);
+        }
+
+        try {
+            jmsSendMetrics.record("order-intake", () -> jmsTemplate.convertAndSend(queue, id, message -> {
+                message.setJMSCorrelationID(requestId);
+                return message;
+            }));
+        } catch (JmsException exception) {
+            // the intake is stored, the periodic sweep places it without the message
+            LOGGER.warn("order intake: {} is stored but cannot be sent to the intake queue. {}", id, exception.getMessage());
+        }
+        OrderIntakeResponse orderIntakeResponse = new OrderIntakeResponse();
+        orderIntakeResponse.setTrackingId(id);
+        orderIntakeResponse.setStatus(IntakeStatus.ACCEPTED);
+        return orderIntakeResponse;
+    }
+
+    /**
+     * Retrieves the outcome of the intake
+     * @param trackingId id given when the order was accepted
+     * @return OrderIntakeResponse with the status, and the order id once created
+     */
+    public OrderIntakeResponse getIntake(String trackingId) {
+        return orderIntakeStore.find(trackingId).map(this::convertToResponse)
+                .orElseThrow(() -> new OrderIntakeNotFoundException("Order intake cannot be found for tracking id: " + trackingId));
+    }
+
+    private OrderIntakeResponse convertToResponse(StoredIntake storedIntake) {
+        OrderIntakeResponse orderIntakeResponse = new OrderIntakeResponse();
+        orderIntakeResponse.setTrackingId(storedIntake.getId());
+        orderIntakeResponse.setStatus(storedIntake.getStatus());
+        orderIntakeResponse.setOrderId(storedIntake.getOrderId());
+        orderIntakeResponse.setMessage(storedIntake.getMessage());
+        return orderIntakeResponse;
+    }
+
+    private String serialize(OrderRequest orderRequest) {
+        try {
+            return objectMapper.writeValueAsString(orderRequest);
+        } catch (JsonProcessingException exception) {
+            throw new IllegalStateException("Order request cannot be serialized", exception);
+        }
+    }
+}
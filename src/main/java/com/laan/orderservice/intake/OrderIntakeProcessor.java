@@ -0,0 +1,182 @@
+package com.laan.orderservice.intake;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.laan.orderservice.enums.BatchItemStatus;
+import com.laan.orderservice.enums.IntakeStatus;
+import com.laan.orderservice.filter.MdcFilter;
+import com.laan.orderservice.intake.OrderIntakeStore.StoredIntake;
+import com.laan.orderservice.request.BatchOrderRequest;
+import com.laan.orderservice.request.OrderRequest;
+import com.laan.orderservice.response.BatchItemResponse;
+import com.laan.orderservice.service.OrderService;
+import com.laan.orderservice.transaction.RetryingTransactionExecutor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.slf4j.MDC;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Places the waiting order intakes in batches through the batch path of the order service. Claiming the intakes,
+ * placing their orders and recording the outcomes happen in one transaction, so an intake is either placed once
+ * with its outcome recorded or left waiting for the next batch. Once a batch fails, its intakes are placed one by one,
+ * and an intake failing on its own is rejected, so that it does not hold back the intakes behind it.
+ *
+ * @author Lalanke Athauda
+ */
+@Component
+public class OrderIntakeProcessor {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(OrderIntakeProcessor.class);
+
+    private final OrderIntakeStore orderIntakeStore;
+
+    private final OrderService orderService;
+
+    private final RetryingTransactionExecutor transactionExecutor;
+
+    private final ObjectMapper objectMapper;
+
+    private final int batchSize;
+
+    @Autowired
+    public OrderIntakeProcessor(OrderIntakeStore orderIntakeStore, OrderService orderService, RetryingTransactionExecutor transactionExecutor,
+                                ObjectMapper objectMapper, @Value("${order-service.intake.batch-size}") int batchSize) {
+        this.orderIntakeStore = orderIntakeStore;
+        this.orderService = orderService;
+        this.transactionExecutor = transactionExecutor;
+        this.objectMapper = objectMapper;
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * Places the waiting intakes batch by batch until none is left
+     */
+    public void processAccepted() {
+        int processedIntakes;
+        do {
+            try {
+                processedIntakes = transactionExecutor.execute(this::processBatch);
+            } catch (RuntimeException exception) {
+                LOGGER.warn("batch of order intakes cannot be placed, placing them one by one. {}", exception.getMessage());
+                processedIntakes = processOneByOne();
+            }
+        } while (processedIntakes == batchSize);
+    }
+
+    /**
+     * Places the intakes whose messages were lost, e.g. when the broker was unavailable while accepting them
+     */
+    @Scheduled(fixedDelayString = "${order-service.intake.sweep-interval}")
+    public void sweep() {
+        processAccepted();
+    }
+
+    private int processBatch() {
+        List<StoredIntake> claimedIntakes = orderIntakeStore.claimAccepted(batchSize);
+        if (claimedIntakes.isEmpty()) {
+            return 0;
+        }
+        place(claimedIntakes);
+        return claimedIntakes.size();
+    }
+
+    /**
+     * Places the oldest waiting intakes in a transaction each, an intake whose placement fails is rejected
+     * @return number of intakes read, claimed by this or another transaction
+     */
+    private int processOneByOne() {
+        List<StoredIntake> acceptedIntakes = orderIntakeStore.findAccepted(batchSize);
+        for (StoredIntake acceptedIntake : acceptedIntakes) {
+            try {
+                transactionExecutor.execute(() -> place(orderIntakeStore.claim(List.of(acceptedIntake))));
+            } catch (RuntimeException exception) {
+                LOGGER.error("order intake: {} cannot be placed", acceptedIntake.getId(), exception);
+                transactionExecutor.execute(() -> reject(orderIntakeStore.claim(List.of(acceptedIntake)), "Order cannot be placed"));
+            }
+        }
+        return acceptedIntakes.size();
+    }
+
+    private void reject(List<StoredIntake> claimedIntakes, String message) {
+        List<StoredIntake> outcomes = new ArrayList<>();
+        for (StoredIntake claimedIntake : claimedIntakes) {
+            outcomes.add(new StoredIntake(claimedIntake.getId(), claimedIntake.getRequest(), claimedIntake.getRequestId(), IntakeStatus.REJECTED, null, message));
+        }
+        orderIntakeStore.complete(outcomes);
+        for (StoredIntake outcome : outcomes) {
+            logOutcome(outcome);
+        }
+    }
+
+    private void place(List<StoredIntake> claimedIntakes) {
+        if (claimedIntakes.isEmpty()) {
+            return;
+        }
+
+        List<StoredIntake> outcomes = new ArrayList<>();
+        List<StoredIntake> placedIntakes = new ArrayList<>();
+        List<OrderRequest> orderRequests = new ArrayList<>();
+        for (StoredIntake claimedIntake : claimedIntakes) {
+            try {
+                orderRequests.add(objectMapper.readValue(claimedIntake.getRequest(), OrderRequest.class));
+                placedIntakes.add(claimedIntake);
+            } catch (JsonProcessingException exception) {
+                outcomes.add(new StoredIntake(claimedIntake.getId(), claimedIntake.getRequest(), claimedIntake.getRequestId(), IntakeStatus.REJECTED, null, "Order request cannot be read"));
+            }
+        }
+
+        if (!orderRequests.isEmpty()) {
+            BatchOrderRequest batchOrderRequest = new BatchOrderRequest();
+            batchOrderRequest.setOrders(orderRequests);
+            // runs within this transaction, the intakes and their orders are committed together
+            List<BatchItemResponse> results = orderService.addOrders(batchOrderRequest).getResults();
+            for (int i = 0; i < results.size(); i++) {
+                StoredIntake placedIntake = placedIntakes.get(i);
+                BatchItemResponse result = results.get(i);
+                if (result.getStatus() == BatchItemStatus.CREATED) {
+                    outcomes.add(new StoredIntake(placedIntake.getId(), placedIntake.getRequest(), placedIntake.getRequestId(), IntakeStatus.CREATED, result.getOrder().getId(), null));
+                } else {
+                    outcomes.add(new StoredIntake(placedIntake.getId(), placedIntake.getRequest(), placedIntake.getRequestId(), IntakeStatus.REJECTED, null, result.getMessage()));
+                }
+            }
+        }
+
+        orderIntakeStore.complete(outcomes);
+        for (StoredIntake outcome : outcomes) {
+            logOutcome(outcome);
+        }
+        LOGGER.info("placed {} order intakes", claimedIntakes.size());
+    }
+
+    /**
+     * Logs the outcome of the intake with the id of the request that accepted it, the intakes of a batch come from
+     * different requests
+     * @param outcome outcome of the intake
+     */
+    private void logOutcome(StoredIntake outcome) {
+        String previousRequestId = MDC.get(MdcFilter.MDC_KEY);
+        if (outcome.getRequestId() != null) {
+            MDC.put(MdcFilter.MDC_KEY, outcome.getRequestId());
+        }
+        try {
+            if (outcome.getStatus() == IntakeStatus.CREATED) {
+                LOGGER.info("order intake: {} is placed as order: {}", outcome.getId(), outcome.getOrderId());
+            } else {
+                LOGGER.info("order intake: {} is rejected. {}", outcome.getId(), outcome.getMessage());
+            }
+        } finally {
+            if (previousRequestId == null) {
+                MDC.remove(MdcFilter.MDC_KEY);
+            } else {
+                MDC.put(MdcFilter.MDC_KEY, previousRequestId);
+            }
+        }
+    }
+}
@@ -0,0 +1,188 @@
+package com.laan.orderservice.intake;
+
+import com.laan.orderservice.enums.IntakeStatus;
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Order intakes waiting for or done with their placement, kept in the database so that every instance can place them
+ * and report their outcome. Uses plain JDBC, the rows are never needed as managed entities.
+ *
+ * @author Lalanke Athauda
+ */
+@Component
+public class OrderIntakeStore {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(OrderIntakeStore.class);
+
+    private static final String INSERT_INTAKE_SQL = "insert into order_intake (id, idempotency_key, request, request_id, status, created_timestamp) "
+            + "values (:id, :idempotencyKey, :request, :requestId, :status, :createdTimestamp)";
+
+    private static final String SELECT_INTAKE_SQL = "select id, request, request_id, status, order_id, message from order_intake where id = :id";
+
+    private static final String SELECT_INTAKE_BY_KEY_SQL = "select id, request, request_id, status, order_id, message from order_intake where idempotency_key = :idempotencyKey";
+
+    private static final String SELECT_ACCEPTED_INTAKES_SQL = "select id, request, request_id, status, order_id, message from order_intake "
+            + "where status = :status order by created_timestamp, id limit :limit";
+
+    // counts no further than the limit, so that a long backlog does not make the check expensive
+    private static final String COUNT_ACCEPTED_INTAKES_SQL = "select count(*) from (select 1 from order_intake where status = :status limit :limit) accepted";
+
+    private static final String CLAIM_INTAKE_SQL = "update order_intake set status = :status, updated_timestamp = :updatedTimestamp where id = :id and status = :acceptedStatus";
+
+    private static final String COMPLETE_INTAKE_SQL = "update order_intake set status = :status, order_id = :orderId, message = :message, "
+            + "updated_timestamp = :updatedTimestamp where id = :id";
+
+    private static final String DELETE_EXPIRED_INTAKES_SQL = "delete from order_intake where status in (:statuses) and updated_timestamp < :before";
+
+    private static final RowMapper<StoredIntake> STORED_INTAKE_MAPPER = (resultSet, rowNum) -> new StoredIntake(resultSet.getString("id"),
+            resultSet.getString("request"), resultSet.getString("request_id"), IntakeStatus.valueOf(resultSet.getString("status")),
+            resultSet.getObject("order_id", Long.class), resultSet.getString("message"));
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+
+    private final Duration retention;
+
+    @Autowired
+    public OrderIntakeStore(NamedParameterJdbcTemplate jdbcTemplate, @Value("${order-service.intake.retention}") Duration retention) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.retention = retention;
+    }
+
+    void insert(String id, String idempotencyKey, String request, String requestId) {
+        MapSqlParameterSource parameters = new MapSqlParameterSource()
+                .addValue("id", id)
+                .addValue("idempotencyKey", idempotencyKey)
+                .addValue("request", request)
+                .addValue("requestId", requestId)
+                .addValue("status", IntakeStatus.ACCEPTED.name())
+                .addValue("createdTimestamp", new Date());
+        jdbcTemplate.update(INSERT_INTAKE_SQL, parameters);
+    }
+
+    Optional<StoredIntake> find(String id) {
+        return jdbcTemplate.query(SELECT_INTAKE_SQL, Map.of("id", id), STORED_INTAKE_MAPPER).stream().findFirst();
+    }
+
+    Optional<StoredIntake> findByIdempotencyKey(String idempotencyKey) {
+        return jdbcTemplate.query(SELECT_INTAKE_BY_KEY_SQL, Map.of("idempotencyKey", idempotencyKey), STORED_INTAKE_MAPPER).stream().findFirst();
+    }
+
+    int countAccepted(int limit) {
+        Integer count = jdbcTemplate.queryForObject(COUNT_ACCEPTED_INTAKES_SQL, Map.of("status", IntakeStatus.ACCEPTED.name(), "limit", limit), Integer.class);
+        return count == null ? 0 : count;
+    }
+
+    /**
+     * Claims the oldest accepted intakes within the current transaction
+     * @param limit most intakes to be claimed
+     * @return claimed intakes, oldest first
+     */
+    List<StoredIntake> claimAccepted(int limit) {
+        return claim(findAccepted(limit));
+    }
+
+    /**
+     * Reads the oldest accepted intakes without claiming them
+     * @param limit most intakes to be read
+     * @return accepted intakes, oldest first
+     */
+    List<StoredIntake> findAccepted(int limit) {
+        return jdbcTemplate.query(SELECT_ACCEPTED_INTAKES_SQL, Map.of("status", IntakeStatus.ACCEPTED.name(), "limit", limit), STORED_INTAKE_MAPPER);
+    }
+
+    /**
+     * Claims the accepted intakes within the current transaction. An intake claimed by a concurrent transaction
+     * is waited for and left out once that transaction commits, so every intake is placed by one transaction only.
+     * @param acceptedIntakes intakes read as accepted
+     * @return claimed intakes, in the given order
+     */
+    List<StoredIntake> claim(List<StoredIntake> acceptedIntakes) {
+        if (acceptedIntakes.isEmpty()) {
+            return acceptedIntakes;
+        }
+
+        Date updatedTimestamp = new Date();
+        SqlParameterSource[] parameters = new SqlParameterSource[acceptedIntakes.size()];
+        for (int i = 0; i < acceptedIntakes.size(); i++) {
+            parameters[i] = new MapSqlParameterSource()
+                    .addValue("id", acceptedIntakes.get(i).getId())
+                    .addValue("status", IntakeStatus.PROCESSING.name())
+                    .addValue("acceptedStatus", IntakeStatus.ACCEPTED.name())
+                    .addValue("updatedTimestamp", updatedTimestamp);
+        }
+        int[] updateCounts = jdbcTemplate.batchUpdate(CLAIM_INTAKE_SQL, parameters);
+
+        List<StoredIntake> claimedIntakes = new ArrayList<>();
+        for (int i = 0; i < acceptedIntakes.size(); i++) {
+            if (updateCounts[i] != 0) {
+                claimedIntakes.add(acceptedIntakes.get(i));
+            }
+        }
+        return claimedIntakes;
+    }
+
+    /**
+     * Records the outcomes of the claimed intakes with one batch
+     * @param outcomes outcome of each intake
+     */
+    void complete(List<StoredIntake> outcomes) {
+        Date updatedTimestamp = new Date();
+        List<SqlParameterSource> parameters = new ArrayList<>();
+        for (StoredIntake outcome : outcomes) {
+            parameters.add(new MapSqlParameterSource()
+                    .addValue("id", outcome.getId())
+                    .addValue("status", outcome.getStatus().name())
+                    .addValue("orderId", outcome.getOrderId())
+                    .addValue("message", outcome.getMessage())
+                    .addValue("updatedTimestamp", updatedTimestamp));
+        }
+        jdbcTemplate.batchUpdate(COMPLETE_INTAKE_SQL, parameters.toArray(new SqlParameterSource[0]));
+    }
+
+    @Scheduled(fixedDelayString = "${order-service.intake.cleanup-interval}")
+    public void deleteExpiredIntakes() {
+        int deletedIntakes = jdbcTemplate.update(DELETE_EXPIRED_INTAKES_SQL, Map.of(
+                "statuses", List.of(IntakeStatus.CREATED.name(), IntakeStatus.REJECTED.name()),
+                "before", new Date(System.currentTimeMillis() - retention.toMillis())));
+        if (deletedIntakes > 0) {
+            LOGGER.info("deleted {} expired order intakes", deletedIntakes);
+        }
+    }
+
+    @Getter
+    @AllArgsConstructor(access = AccessLevel.PACKAGE)
+    static final class StoredIntake {
+
+        private final String id;
+
+        private final String request;
+
+        // id of the request that accepted the intake
+        private final String requestId;
+
+        private final IntakeStatus status;
+
+        private final Long orderId;
+
+        private final String message;
+    }
+}
@@ -0,0 +1,259 @@
+package com.laan.orderservice.inventory;
+
+import com.laan.orderservice.exception.ProductNotFoundException;
+import com.laan.orderservice.exception.QuantityMismatchException;
+import com.laan.orderservice.transaction.RetryingTransactionExecutor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Stocks of the designated hot products, reserved in memory so that orders of the same product do not queue up
+ * on its row. Each product has a lock of its own. A reservation is appended to the {@link StockJournal} within
+ * the transaction of the order, and given back to the memory if the transaction rolls back. The journal is applied
+ * to product.quantity in the background, and is read together with it whenever a stock is loaded, so a restart
+ * after a crash continues from the committed reservations.
+ * The stocks are held per instance, so hot products must be served by a single instance.
+ *
+ * @author Lalanke Athauda
+ */
+@Component
+public class HotStockLedger {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(HotStockLedger.class);
+
+    private final StockJournal stockJournal;
+
+    private final RetryingTransactionExecutor transactionExecutor;
+
+    private final Set<Long> hotProductIds;
+
+    private final int flushBatchSize;
+
+    private final ConcurrentMap<Long, HotStock> stocks = new ConcurrentHashMap<>();
+
+    @Autowired
+    public HotStockLedger(StockJournal stockJournal, RetryingTransactionExecutor transactionExecutor,
+                          @Value("${order-service.inventory.hot-product-ids}") Set<Long> hotProductIds,
+                          @Value("${order-service.inventory.flush-batch-size}") int flushBatchSize) {
+        this.stockJournal = stockJournal;
+        this.transactionExecutor = transactionExecutor;
+        this.hotProductIds = Set.copyOf(hotProductIds);
+        this.flushBatchSize = flushBatchSize;
+    }
+
+    public boolean isHot(Long productId) {
+        return hotProductIds.contains(productId);
+    }
+
+    /**
+     * Reserves the quantities of hot products, all or nothing
+     * @param quantities quantities to be reserved keyed by product id, a negative quantity releases stock once committed
+     * @return failure when a product cannot be found or cannot supply its quantity, null when reserved
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public RuntimeException tryReserve(Map<Long, Integer> quantities) {
+        Map<Long, Integer> reservedQuantities = new TreeMap<>();
+        Map<HotStock, Integer> takenQuantities = new HashMap<>();
+        Map<HotStock, Integer> releasedQuantities = new HashMap<>();
+        for (Map.Entry<Long, Integer> entry : quantities.entrySet()) {
+            int quantity = entry.getValue();
+            if (quantity == 0) {
+                continue;
+            }
+            HotStock stock = findStock(entry.getKey());
+            RuntimeException failure = null;
+            if (stock == null) {
+                failure = new ProductNotFoundException("Product cannot be found for the id: " + entry.getKey());
+            } else if (quantity > 0 && !stock.take(quantity)) {
+                failure = new QuantityMismatchException("Cannot supply " + quantity + " product/s for product id: " + entry.getKey() + ". Only " + stock.getAvailable() + " available.");
+            }
+            if (failure != null) {
+                takenQuantities.forEach(HotStock::giveBack);
+                return failure;
+            }
+            if (quantity > 0) {
+                takenQuantities.put(stock, quantity);
+            } else {
+                releasedQuantities.put(stock, -quantity);
+            }
+            reservedQuantities.put(entry.getKey(), quantity);
+        }
+        if (reservedQuantities.isEmpty()) {
+            return null;
+        }
+
+        stockJournal.append(reservedQuantities);
+        Set<HotStock> reservedStocks = new HashSet<>(takenQuantities.keySet());
+        reservedStocks.addAll(releasedQuantities.keySet());
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void beforeCompletion() {
+                reservedStocks.forEach(HotStock::startCompletion);
+            }
+
+            @Override
+            public void afterCompletion(int status) {
+                if (status == STATUS_COMMITTED) {
+                    takenQuantities.forEach(HotStock::confirm);
+                    // released stock becomes available only once the release cannot roll back
+                    releasedQuantities.forEach(HotStock::add);
+                } else {
+                    takenQuantities.forEach(HotStock::giveBack);
+                }
+                reservedStocks.forEach(HotStock::endCompletion);
+            }
+        });
+        return null;
+    }
+
+    /**
+     * Loads the stock of the hot product again from the database, e.g. after it was changed by the catalog owner.
+     * A transaction between its commit and its completion is in the database but not yet in the memory, so the stock
+     * is read only once no transaction of it is completing, and none starts completing until it is loaded.
+     * @param productId product id
+     */
+    public void refresh(Long productId) {
+        HotStock stock = stocks.get(productId);
+        if (stock == null) {
+            return;
+        }
+        synchronized (stock) {
+            try {
+                stock.awaitCompletions();
+            } catch (InterruptedException exception) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while waiting to refresh the stock of product id: " + productId, exception);
+            }
+            Optional<Integer> quantity = stockJournal.findStock(productId);
+            if (quantity.isPresent()) {
+                stock.reload(quantity.get());
+            } else {
+                stocks.remove(productId, stock);
+            }
+        }
+    }
+
+    public void refreshAll() {
+        for (Long productId : stocks.keySet()) {
+            refresh(productId);
+        }
+    }
+
+    /**
+     * Applies the journal to product.quantity batch by batch until it is empty
+     */
+    @Scheduled(fixedDelayString = "${order-service.inventory.flush-interval}")
+    public void flush() {
+        int appliedEntries;
+        do {
+            appliedEntries = transactionExecutor.execute(() -> stockJournal.apply(flushBatchSize));
+            if (appliedEntries > 0) {
+                LOGGER.debug("applied {} stock journal entries", appliedEntries);
+            }
+        } while (appliedEntries == flushBatchSize);
+    }
+
+    /**
+     * Applies what the previous run left in the journal and loads the hot stocks before the first order
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void recover() {
+        flush();
+        for (Long productId : hotProductIds) {
+            if (findStock(productId) == null) {
+                LOGGER.warn("hot product: {} cannot be found", productId);
+            }
+        }
+        LOGGER.info("loaded {} hot product stocks", stocks.size());
+    }
+
+    Integer getAvailable(Long productId) {
+        HotStock stock = stocks.get(productId);
+        return stock == null ? null : stock.getAvailable();
+    }
+
+    private HotStock findStock(Long productId) {
+        return stocks.computeIfAbsent(productId, id -> stockJournal.findStock(id).map(HotStock::new).orElse(null));
+    }
+
+    private static final class HotStock {
+
+        private int available;
+
+        // taken by transactions not completed yet, they are in neither the database nor the journal
+        private int pending;
+
+        // transactions between the start and the end of their completion, they may be committed already
+        private int completing;
+
+        private HotStock(int available) {
+            this.available = available;
+        }
+
+        private synchronized boolean take(int quantity) {
+            if (available < quantity) {
+                return false;
+            }
+            available -= quantity;
+            pending += quantity;
+            return true;
+        }
+
+        private synchronized void confirm(int quantity) {
+            pending -= quantity;
+        }
+
+        private synchronized void giveBack(int quantity) {
+            pending -= quantity;
+            available += quantity;
+        }
+
+        private synchronized void add(int quantity) {
+            available += quantity;
+        }
+
+        private synchronized void startCompletion() {
+            completing++;
+        }
+
+        private synchronized void endCompletion() {
+            completing--;
+            if (completing == 0) {
+                notifyAll();
+            }
+        }
+
+        private synchronized void awaitCompletions() throws InterruptedException {
+            while (completing > 0) {
+                wait();
+            }
+        }
+
+        private synchronized void reload(int quantity) {
+            available = quantity - pending;
+        }
+
+        private synchronized int getAvailable() {
+            return available;
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package com.laan.orderservice.inventory;
+
+import com.laan.orderservice.id.IdBlockAllocator;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+
+/**
+ * Journal of the quantities reserved from hot products, appended within the transaction of the order so that the
+ * reservation is durable exactly when the order is. The entries are applied to product.quantity in batches later.
+ * Uses plain JDBC, the entries are never needed as managed entities.
+ *
+ * @author Lalanke Athauda
+ */
+@Component
+public class StockJournal {
+
+    private static final String SEQUENCE_NAME = "stock_journal";
+
+    private static final String INSERT_ENTRY_SQL = "insert into stock_journal (id, product_id, quantity, created_timestamp) values (:id, :productId, :quantity, :createdTimestamp)";
+
+    private static final String SELECT_ENTRIES_SQL = "select id, product_id, quantity from stock_journal order by id limit :limit for update";
+
+    private static final String UPDATE_PRODUCT_SQL = "update product set quantity = quantity - :quantity where id = :productId";
+
+    private static final String DELETE_ENTRIES_SQL = "delete from stock_journal where id in (:ids)";
+
+    // the stock as it will be once every committed entry is applied
+    private static final String SELECT_STOCK_SQL = "select p.quantity - coalesce((select sum(j.quantity) from stock_journal j where j.product_id = p.id), 0) "
+            + "from product p where p.id = :productId";
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+
+    private final IdBlockAllocator idBlockAllocator;
+
+    @Autowired
+    public StockJournal(NamedParameterJdbcTemplate jdbcTemplate, IdBlockAllocator idBlockAllocator) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.idBlockAllocator = idBlockAllocator;
+    }
+
+    /**
+     * Appends the quantities within the current transaction
+     * @param quantities quantities reserved keyed by product id, a negative quantity releases stock
+     */
+    void append(Map<Long, Integer> quantities) {
+        Date createdTimestamp = new Date();
+        List<SqlParameterSource> parameters = new ArrayList<>();
+        for (Map.Entry<Long, Integer> entry : quantities.entrySet()) {
+            parameters.add(new MapSqlParameterSource()
+                    .addValue("id", idBlockAllocator.nextId(SEQUENCE_NAME))
+                    .addValue("productId", entry.getKey())
+                    .addValue("quantity", entry.getValue())
+                    .addValue("createdTimestamp", createdTimestamp));
+        }
+        jdbcTemplate.batchUpdate(INSERT_ENTRY_SQL, parameters.toArray(new SqlParameterSource[0]));
+    }
+
+    /**
+     * Applies the oldest entries to the product stocks and deletes them, within the current transaction.
+     * Entries are deleted by their ids, so an entry committed meanwhile is left for the next call.
+     * @param limit most entries to be applied
+     * @return number of entries applied
+     */
+    int apply(int limit) {
+        Map<Long, Integer> quantities = new TreeMap<>();
+        List<Long> ids = new ArrayList<>();
+        jdbcTemplate.query(SELECT_ENTRIES_SQL, Map.of("limit", limit), resultSet -> {
+            ids.add(resultSet.getLong("id"));
+            quantities.merge(resultSet.getLong("product_id"), resultSet.getInt("quantity"), Integer::sum);
+        });
+        if (ids.isEmpty()) {
+            return 0;
+        }
+
+        // one update per product, in the order of product id like every other stock update
+        List<SqlParameterSource> parameters = new ArrayList<>();
+        for (Map.Entry<Long, Integer> entry : quantities.entrySet()) {
+            parameters.add(new MapSqlParameterSource()
+                    .addValue("productId", entry.getKey())
+                    .addValue("quantity", entry.getValue()));
+        }
+        jdbcTemplate.batchUpdate(UPDATE_PRODUCT_SQL, parameters.toArray(new SqlParameterSource[0]));
+        jdbcTemplate.update(DELETE_ENTRIES_SQL, Map.of("ids", ids));
+        return ids.size();
+    }
+
+    /**
+     * Reads the stock of the product less the committed entries not applied yet
+     * @param productId product id
+     * @return stock of the product, empty when the product cannot be found
+     */
+    Optional<Integer> findStock(Long productId) {
+        return jdbcTemplate.queryForList(SELECT_STOCK_SQL, Map.of("productId", productId), Integer.class).stream().findFirst();
+    }
+}
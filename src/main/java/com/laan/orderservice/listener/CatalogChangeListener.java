@@ -0,0 +1,59 @@
+package com.laan.orderservice.listener;
+
+import com.laan.orderservice.cache.CatalogCache;
+import com.laan.orderservice.inventory.HotStockLedger;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jms.annotation.JmsListener;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+
+/**
+ * Listens to the catalog changes published by the services owning products and users,
+ * drops the changed entries from the catalog cache and loads the changed hot stocks again
+ *
+ * @author Lalanke Athauda
+ */
+@Component
+public class CatalogChangeListener {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(CatalogChangeListener.class);
+
+    private static final String PRODUCT_ID_KEY = "productId";
+
+    private static final String USER_ID_KEY = "userId";
+
+    private final CatalogCache catalogCache;
+
+    private final HotStockLedger hotStockLedger;
+
+    @Autowired
+    public CatalogChangeListener(CatalogCache catalogCache, HotStockLedger hotStockLedger) {
+        this.catalogCache = catalogCache;
+        this.hotStockLedger = hotStockLedger;
+    }
+
+    /**
+     * Receives a map message with productId and/or userId of the changed entries, without any of them the whole catalog is evicted
+     * @param catalogChange changed entries
+     */
+    @JmsListener(destination = "${order-service.catalog.change-topic}", containerFactory = "topicListenerContainerFactory")
+    public void onCatalogChange(Map<String, Object> catalogChange) {
+        LOGGER.info("received catalog change: {}", catalogChange);
+        Object productId = catalogChange.get(PRODUCT_ID_KEY);
+        Object userId = catalogChange.get(USER_ID_KEY);
+        if (productId == null && userId == null) {
+            catalogCache.evictAll();
+            hotStockLedger.refreshAll();
+        }
+        if (productId != null) {
+            catalogCache.evictProduct(Long.valueOf(productId.toString()));
+            hotStockLedger.refresh(Long.valueOf(productId.toString()));
+        }
+        if (userId != null) {
+            catalogCache.evictUser(Long.valueOf(userId.toString()));
+        }
+    }
+}
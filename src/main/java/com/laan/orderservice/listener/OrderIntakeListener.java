@@ -0,0 +1,42 @@
+package com.laan.orderservice.listener;
+
+import com.laan.orderservice.intake.OrderIntakeProcessor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jms.annotation.JmsListener;
+import org.springframework.jms.support.JmsHeaders;
+import org.springframework.messaging.handler.annotation.Header;
+import org.springframework.stereotype.Component;
+
+/**
+ * Listens to the intake queue and places the waiting order intakes. A message only signals that intakes are waiting,
+ * the listener places every waiting intake in batches, so the messages of intakes already placed by another listener
+ * find nothing left to do.
+ *
+ * @author Lalanke Athauda
+ */
+@Component
+public class OrderIntakeListener {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(OrderIntakeListener.class);
+
+    private final OrderIntakeProcessor orderIntakeProcessor;
+
+    @Autowired
+    public OrderIntakeListener(OrderIntakeProcessor orderIntakeProcessor) {
+        this.orderIntakeProcessor = orderIntakeProcessor;
+    }
+
+    /**
+     * Receives the tracking id of an accepted intake. A failure rolls the message back for a redelivery.
+     * The placement of each intake is logged with the id of the request that accepted it, kept with the intake.
+     * @param trackingId tracking id of the accepted intake
+     * @param requestId id of the request that accepted the intake, absent in messages sent before it was propagated
+     */
+    @JmsListener(destination = "${order-service.intake.queue}", concurrency = "${order-service.intake.concurrency}")
+    public void onOrderIntake(String trackingId, @Header(name = JmsHeaders.CORRELATION_ID, required = false) String requestId) {
+        LOGGER.debug("received order intake: {} of request: {}", trackingId, requestId);
+        orderIntakeProcessor.processAccepted();
+    }
+}
@@ -0,0 +1,68 @@
+package com.laan.orderservice.listener;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.boot.context.metrics.buffering.BufferingApplicationStartup;
+import org.springframework.boot.context.metrics.buffering.StartupTimeline;
+import org.springframework.context.ApplicationListener;
+import org.springframework.core.metrics.StartupStep;
+import org.springframework.stereotype.Component;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Logs the time the service took to become ready, and the slowest beans to create when the startup steps were
+ * recorded, which the service does when started from its main method. The full timeline is at /actuator/startup.
+ *
+ * @author Lalanke Athauda
+ */
+@Component
+public class StartupReportListener implements ApplicationListener<ApplicationReadyEvent> {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(StartupReportListener.class);
+
+    private static final String BEAN_INSTANTIATION_STEP = "spring.beans.instantiate";
+
+    private static final String BEAN_NAME_TAG = "beanName";
+
+    private final int slowestBeans;
+
+    @Autowired
+    public StartupReportListener(@Value("${order-service.startup.report.slowest-beans}") int slowestBeans) {
+        this.slowestBeans = slowestBeans;
+    }
+
+    @Override
+    public void onApplicationEvent(ApplicationReadyEvent event) {
+        LOGGER.info("order service is ready in {} ms", event.getTimeTaken().toMillis());
+        if (!(event.getApplicationContext().getApplicationStartup() instanceof BufferingApplicationStartup)) {
+            return;
+        }
+
+        BufferingApplicationStartup applicationStartup = (BufferingApplicationStartup) event.getApplicationContext().getApplicationStartup();
+        // a bean's time includes the beans it depends on, which are created within it
+        List<StartupTimeline.TimelineEvent> slowestEvents = applicationStartup.getBufferedTimeline().getEvents().stream()
+                .filter(timelineEvent -> BEAN_INSTANTIATION_STEP.equals(timelineEvent.getStartupStep().getName()))
+                .sorted(Comparator.comparing(StartupTimeline.TimelineEvent::getDuration).reversed())
+                .limit(slowestBeans)
+                .collect(Collectors.toList());
+        for (StartupTimeline.TimelineEvent timelineEvent : slowestEvents) {
+            LOGGER.info("startup: bean {} created in {} ms", findBeanName(timelineEvent.getStartupStep()),
+                    timelineEvent.getDuration().toMillis());
+        }
+    }
+
+    private String findBeanName(StartupStep startupStep) {
+        for (StartupStep.Tag tag : startupStep.getTags()) {
+            if (BEAN_NAME_TAG.equals(tag.getKey())) {
+                return tag.getValue();
+            }
+        }
+        return startupStep.getName();
+    }
+}
@@ -0,0 +1,39 @@
+package com.laan.orderservice.logging;
+
+import org.slf4j.MDC;
+import org.springframework.core.task.TaskDecorator;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+
+/**
+ * Carries the MDC of the submitting thread, and so its request id, into the tasks of the application task executor,
+ * which runs @Async methods and asynchronous MVC requests
+ *
+ * @author Lalanke Athauda
+ */
+@Component
+public class MdcTaskDecorator implements TaskDecorator {
+
+    @Override
+    public Runnable decorate(Runnable runnable) {
+        Map<String, String> contextMap = MDC.getCopyOfContextMap();
+        return () -> {
+            Map<String, String> previousContextMap = MDC.getCopyOfContextMap();
+            if (contextMap == null) {
+                MDC.clear();
+            } else {
+                MDC.setContextMap(contextMap);
+            }
+            try {
+                runnable.run();
+            } finally {
+                if (previousContextMap == null) {
+                    MDC.clear();
+                } else {
+                    MDC.setContextMap(previousContextMap);
+                }
+            }
+        };
+    }
+}
@@ -0,0 +1,42 @@
+package com.laan.orderservice.logging;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.turbo.TurboFilter;
+import ch.qos.logback.core.spi.FilterReply;
+import org.slf4j.MDC;
+import org.slf4j.Marker;
+
+/**
+ * Keeps the INFO and lower logs of one request in every sampleEvery requests, chosen by the request id in the MDC,
+ * so that a kept request keeps all of its lines. Warnings, errors and logs outside a request are always kept.
+ * Dropped events are refused before logback creates them, so they cost no formatting or allocation.
+ *
+ * @author Lalanke Athauda
+ */
+public class RequestLogSampler extends TurboFilter {
+
+    private String mdcKey = "mdcId";
+
+    private int sampleEvery = 1;
+
+    @Override
+    public FilterReply decide(Marker marker, Logger logger, Level level, String format, Object[] params, Throwable t) {
+        if (sampleEvery <= 1 || level.isGreaterOrEqual(Level.WARN)) {
+            return FilterReply.NEUTRAL;
+        }
+        String requestId = MDC.get(mdcKey);
+        if (requestId == null || Math.floorMod(requestId.hashCode(), sampleEvery) == 0) {
+            return FilterReply.NEUTRAL;
+        }
+        return FilterReply.DENY;
+    }
+
+    public void setMdcKey(String mdcKey) {
+        this.mdcKey = mdcKey;
+    }
+
+    public void setSampleEvery(int sampleEvery) {
+        this.sampleEvery = sampleEvery;
+    }
+}
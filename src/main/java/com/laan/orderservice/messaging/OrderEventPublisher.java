@@ -0,0 +1,59 @@
+package com.laan.orderservice.messaging;
+
+import com.laan.orderservice.converter.OrderConverter;
+import com.laan.orderservice.entity.OrderEntity;
+import com.laan.orderservice.entity.OrderEventEntity;
+import com.laan.orderservice.event.EventSerializer;
+import com.laan.orderservice.event.OrderStatusChangedEvent;
+import com.laan.orderservice.filter.MdcFilter;
+import com.laan.orderservice.repository.OrderEventRepository;
+import org.slf4j.MDC;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Date;
+
+/**
+ * Publishes order events through the outbox table. The event is written in the transaction of the order change,
+ * so it is published if and only if the change is committed. {@link OrderEventRelay} sends it to the queue later.
+ *
+ * @author Lalanke Athauda
+ */
+@Component
+public class OrderEventPublisher {
+
+    private final OrderEventRepository orderEventRepository;
+
+    private final OrderConverter orderConverter;
+
+    private final EventSerializer<OrderStatusChangedEvent> orderStatusChangedEventSerializer;
+
+    @Autowired
+    public OrderEventPublisher(OrderEventRepository orderEventRepository, OrderConverter orderConverter,
+                               EventSerializer<OrderStatusChangedEvent> orderStatusChangedEventSerializer) {
+        this.orderEventRepository = orderEventRepository;
+        this.orderConverter = orderConverter;
+        this.orderStatusChangedEventSerializer = orderStatusChangedEventSerializer;
+    }
+
+    /**
+     * Adds the status change of the order to the outbox
+     * @param orderEntity order with the new status, already flushed so that it carries its new version
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void publishStatusChanged(OrderEntity orderEntity) {
+        OrderStatusChangedEvent event = orderConverter.convertEntityToStatusChangedEvent(orderEntity);
+
+        OrderEventEntity orderEventEntity = new OrderEventEntity();
+        orderEventEntity.setOrderId(orderEntity.getId());
+        orderEventEntity.setEventType(OrderStatusChangedEvent.EVENT_TYPE);
+        orderEventEntity.setSchemaVersion(orderStatusChangedEventSerializer.schemaVersion());
+        orderEventEntity.setPayload(orderStatusChangedEventSerializer.serialize(event));
+        // the relay sends the event later on its own thread, the request id travels with the event
+        orderEventEntity.setCorrelationId(MDC.get(MdcFilter.MDC_KEY));
+        orderEventEntity.setCreatedTimestamp(new Date());
+        orderEventRepository.save(orderEventEntity);
+    }
+}
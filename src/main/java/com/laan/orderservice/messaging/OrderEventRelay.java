@@ -0,0 +1,126 @@
+package com.laan.orderservice.messaging;
+
+import com.laan.orderservice.entity.OrderEventEntity;
+import com.laan.orderservice.metrics.JmsSendMetrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jms.core.JmsTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.jms.ConnectionFactory;
+import javax.jms.JMSException;
+import javax.jms.MessageProducer;
+import javax.jms.Queue;
+import javax.jms.TextMessage;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Drains the outbox to the queue in the background, in batches sent within a single JMS transaction.
+ * Events are deleted only after the broker accepted them, so an event may be sent more than once
+ * but is never lost (at-least-once delivery).
+ *
+ * @author Lalanke Athauda
+ */
+@Component
+public class OrderEventRelay {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(OrderEventRelay.class);
+
+    static final String EVENT_TYPE_PROPERTY = "eventType";
+
+    static final String ORDER_ID_PROPERTY = "orderId";
+
+    static final String SCHEMA_VERSION_PROPERTY = "schemaVersion";
+
+    static final String CONTENT_TYPE_PROPERTY = "contentType";
+
+    private static final String CONTENT_TYPE = "application/json";
+
+    private static final String SELECT_EVENTS_SQL = "select id, order_id, event_type, schema_version, payload, correlation_id from order_event_outbox order by id limit :limit";
+
+    private static final String DELETE_EVENTS_SQL = "delete from order_event_outbox where id in (:ids)";
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+
+    private final JmsTemplate jmsTemplate;
+
+    private final JmsSendMetrics jmsSendMetrics;
+
+    private final Queue queue;
+
+    private final int batchSize;
+
+    @Autowired
+    public OrderEventRelay(NamedParameterJdbcTemplate jdbcTemplate, ConnectionFactory connectionFactory, JmsSendMetrics jmsSendMetrics,
+                           Queue queue, @Value("${order-service.outbox.batch-size}") int batchSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.jmsTemplate = new JmsTemplate(connectionFactory);
+        this.jmsTemplate.setSessionTransacted(true);
+        this.jmsSendMetrics = jmsSendMetrics;
+        this.queue = queue;
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * Sends the waiting events batch by batch until the outbox is empty.
+     * The outbox is read with plain JDBC, the events are only copied to the queue and need no managed entities.
+     */
+    @Scheduled(fixedDelayString = "${order-service.outbox.flush-interval}")
+    public void relay() {
+        List<OrderEventEntity> orderEventEntities;
+        do {
+            orderEventEntities = jdbcTemplate.query(SELECT_EVENTS_SQL, Map.of("limit", batchSize), (resultSet, rowNum) -> {
+                OrderEventEntity orderEventEntity = new OrderEventEntity();
+                orderEventEntity.setId(resultSet.getLong("id"));
+                orderEventEntity.setOrderId(resultSet.getLong("order_id"));
+                orderEventEntity.setEventType(resultSet.getString("event_type"));
+                orderEventEntity.setSchemaVersion(resultSet.getInt("schema_version"));
+                orderEventEntity.setPayload(resultSet.getString("payload"));
+                orderEventEntity.setCorrelationId(resultSet.getString("correlation_id"));
+                return orderEventEntity;
+            });
+            if (!orderEventEntities.isEmpty()) {
+                send(orderEventEntities);
+                List<Long> ids = new ArrayList<>();
+                for (OrderEventEntity orderEventEntity : orderEventEntities) {
+                    ids.add(orderEventEntity.getId());
+                }
+                jdbcTemplate.update(DELETE_EVENTS_SQL, Map.of("ids", ids));
+                LOGGER.info("relayed {} order events to queue", orderEventEntities.size());
+            }
+        } while (orderEventEntities.size() == batchSize);
+    }
+
+    private void send(List<OrderEventEntity> orderEventEntities) {
+        jmsSendMetrics.record("order-event", () -> jmsTemplate.execute(session -> {
+            MessageProducer producer = session.createProducer(queue);
+            try {
+                for (OrderEventEntity orderEventEntity : orderEventEntities) {
+                    TextMessage message = session.createTextMessage(orderEventEntity.getPayload());
+                    message.setStringProperty(EVENT_TYPE_PROPERTY, orderEventEntity.getEventType());
+                    message.setLongProperty(ORDER_ID_PROPERTY, orderEventEntity.getOrderId());
+                    message.setIntProperty(SCHEMA_VERSION_PROPERTY, orderEventEntity.getSchemaVersion());
+                    message.setStringProperty(CONTENT_TYPE_PROPERTY, CONTENT_TYPE);
+                    if (orderEventEntity.getCorrelationId() != null) {
+                        message.setJMSCorrelationID(orderEventEntity.getCorrelationId());
+                    }
+                    producer.send(message);
+                }
+                // one commit hands the whole batch to the broker
+                session.commit();
+            } catch (JMSException | RuntimeException exception) {
+                session.rollback();
+                throw exception;
+            } finally {
+                producer.close();
+            }
+            return null;
+        }, true));
+    }
+}
@@ -0,0 +1,45 @@
+package com.laan.orderservice.metrics;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+/**
+ * Times the sends to the broker in order-service.jms.send, tagged with the kind of message and the outcome,
+ * so that failed sends are counted by the failure timer
+ *
+ * @author Lalanke Athauda
+ */
+@Component
+public class JmsSendMetrics {
+
+    static final String METRIC_NAME = "order-service.jms.send";
+
+    private final MeterRegistry meterRegistry;
+
+    @Autowired
+    public JmsSendMetrics(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * Runs the send and records its time, failures are recorded and thrown again
+     * @param message kind of message sent, such as order-event
+     * @param send work sending the message
+     */
+    public void record(String message, Runnable send) {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String outcome = "failure";
+        try {
+            send.run();
+            outcome = "success";
+        } finally {
+            sample.stop(Timer.builder(METRIC_NAME)
+                    .tag("message", message)
+                    .tag("outcome", outcome)
+                    .publishPercentileHistogram()
+                    .register(meterRegistry));
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package com.laan.orderservice.metrics;
+
+import com.laan.orderservice.exception.StatementBudgetExceededException;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Counts the Hibernate statements of every order service operation with a budget in
+ * order-service.statements.budget.[operation], and warns, or fails when configured to, once an operation prepares more.
+ * Runs outside the transaction of the operation, so that the statements flushed on commit are counted as well.
+ *
+ * @author Lalanke Athauda
+ */
+@Aspect
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class StatementBudgetAspect {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(StatementBudgetAspect.class);
+
+    static final String METRIC_NAME = "order-service.db.statements.over-budget";
+
+    private static final String BUDGET_PROPERTY_PREFIX = "order-service.statements.budget.";
+
+    private static final int NO_BUDGET = -1;
+
+    private final StatementCounter statementCounter;
+
+    private final MeterRegistry meterRegistry;
+
+    private final Environment environment;
+
+    private final boolean failOverBudget;
+
+    private final Map<String, Integer> budgets = new ConcurrentHashMap<>();
+
+    @Autowired
+    public StatementBudgetAspect(StatementCounter statementCounter, MeterRegistry meterRegistry, Environment environment,
+                                 @Value("${order-service.statements.fail-over-budget}") boolean failOverBudget) {
+        this.statementCounter = statementCounter;
+        this.meterRegistry = meterRegistry;
+        this.environment = environment;
+        this.failOverBudget = failOverBudget;
+    }
+
+    @Around("execution(public * com.laan.orderservice.service.OrderService.*(..))")
+    public Object countStatements(ProceedingJoinPoint joinPoint) throws Throwable {
+        String operation = joinPoint.getSignature().getName();
+        int budget = budgets.computeIfAbsent(operation,
+                name -> environment.getProperty(BUDGET_PROPERTY_PREFIX + name, Integer.class, NO_BUDGET));
+        if (budget == NO_BUDGET) {
+            return joinPoint.proceed();
+        }
+
+        // requests are counted by StatementCountFilter already, listeners and schedulers are counted here
+        boolean counting = statementCounter.count() >= 0;
+        if (!counting) {
+            statementCounter.start();
+        }
+        int statementsBefore = statementCounter.count();
+        Object result;
+        int statements;
+        try {
+            result = joinPoint.proceed();
+        } finally {
+            statements = statementCounter.count() - statementsBefore;
+            if (!counting) {
+                statementCounter.stop();
+            }
+        }
+
+        if (statements > budget) {
+            meterRegistry.counter(METRIC_NAME, "operation", operation).increment();
+            String message = operation + " prepared " + statements + " statements, over its budget of " + budget;
+            if (failOverBudget) {
+                throw new StatementBudgetExceededException(message);
+            }
+            LOGGER.warn(message);
+        }
+        return result;
+    }
+}
@@ -0,0 +1,47 @@
+package com.laan.orderservice.metrics;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+/**
+ * Counts the statements Hibernate prepares on the current thread while counting is started,
+ * so that the statements of one request, or of one operation within it, can be recorded when it ends.
+ * Statements sent through JdbcTemplate are not counted.
+ *
+ * @author Lalanke Athauda
+ */
+public class StatementCounter implements StatementInspector {
+
+    private static final ThreadLocal<int[]> COUNTS = new ThreadLocal<>();
+
+    @Override
+    public String inspect(String sql) {
+        int[] count = COUNTS.get();
+        if (count != null) {
+            count[0]++;
+        }
+        return sql;
+    }
+
+    public void start() {
+        COUNTS.set(new int[1]);
+    }
+
+    /**
+     * Counts the statements on the current thread so far
+     * @return statements prepared since start, -1 when counting is not started
+     */
+    public int count() {
+        int[] count = COUNTS.get();
+        return count == null ? -1 : count[0];
+    }
+
+    /**
+     * Stops counting on the current thread
+     * @return statements prepared since start
+     */
+    public int stop() {
+        int[] count = COUNTS.get();
+        COUNTS.remove();
+        return count == null ? 0 : count[0];
+    }
+}
@@ -0,0 +1,33 @@
+package com.laan.orderservice.projection;
+
+import com.laan.orderservice.enums.OrderStatus;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+import java.math.BigDecimal;
+
+/**
+ * A row of an order joined with one of its lines, read without loading managed entities.
+ * Product id and quantity are null for an order without lines.
+ *
+ * @author Lalanke Athauda
+ */
+@Getter
+@AllArgsConstructor
+@ToString
+public class OrderLineProjection {
+
+    private final Long orderId;
+
+    private final Long version;
+
+    private final OrderStatus status;
+
+    private final BigDecimal totalPrice;
+
+    private final Long productId;
+
+    private final Integer quantity;
+
+}
@@ -0,0 +1,7 @@
+package com.laan.orderservice.repository;
+
+import com.laan.orderservice.entity.OrderEventEntity;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+public interface OrderEventRepository extends JpaRepository<OrderEventEntity, Long> {
+}
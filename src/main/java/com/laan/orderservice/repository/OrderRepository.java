@@ -1,7 +1,27 @@
 package com.laan.orderservice.repository;
 
 import com.laan.orderservice.entity.OrderEntity;
+import com.laan.orderservice.projection.OrderLineProjection;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
-public interface OrderRepository extends JpaRepository<OrderEntity, Long> {
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+public interface OrderRepository extends JpaRepository<OrderEntity, Long>, OrderRepositoryCustom {
+
+    @Query("select o.version from OrderEntity o where o.id = :id")
+    Optional<Long> findVersionById(@Param("id") Long id);
+
+    @Query("select new com.laan.orderservice.projection.OrderLineProjection(o.id, o.version, o.status, o.totalPrice, op.productEntity.id, op.quantity) " +
+            "from OrderEntity o left join OrderProductEntity op on op.orderEntity = o " +
+            "where o.id = :id order by op.id")
+    List<OrderLineProjection> findOrderLinesById(@Param("id") Long id);
+
+    @Query("select new com.laan.orderservice.projection.OrderLineProjection(o.id, o.version, o.status, o.totalPrice, op.productEntity.id, op.quantity) " +
+            "from OrderEntity o left join OrderProductEntity op on op.orderEntity = o " +
+            "where o.id in :ids order by o.id, op.id")
+    List<OrderLineProjection> findOrderLinesByIdIn(@Param("ids") Collection<Long> ids);
 }
@@ -0,0 +1,18 @@
+package com.laan.orderservice.repository;
+
+import com.laan.orderservice.entity.OrderEntity;
+import com.laan.orderservice.request.OrderSearchRequest;
+
+import java.util.List;
+
+public interface OrderRepositoryCustom {
+
+    /**
+     * Finds the orders matching the filters which come after the cursor, ordered by id
+     * @param orderSearchRequest filters and cursor
+     * @param limit maximum number of orders
+     * @return matching orders
+     */
+    List<OrderEntity> findPage(OrderSearchRequest orderSearchRequest, int limit);
+
+}
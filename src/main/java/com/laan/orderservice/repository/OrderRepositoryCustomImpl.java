@@ -0,0 +1,56 @@
+package com.laan.orderservice.repository;
+
+import com.laan.orderservice.entity.OrderEntity;
+import com.laan.orderservice.request.OrderSearchRequest;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import javax.persistence.TypedQuery;
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.CriteriaQuery;
+import javax.persistence.criteria.Predicate;
+import javax.persistence.criteria.Root;
+import java.util.ArrayList;
+import java.util.List;
+
+public class OrderRepositoryCustomImpl implements OrderRepositoryCustom {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public List<OrderEntity> findPage(OrderSearchRequest orderSearchRequest, int limit) {
+        return createQuery(orderSearchRequest)
+                .setMaxResults(limit)
+                .getResultList();
+    }
+
+    private TypedQuery<OrderEntity> createQuery(OrderSearchRequest orderSearchRequest) {
+        CriteriaBuilder criteriaBuilder = entityManager.getCriteriaBuilder();
+        CriteriaQuery<OrderEntity> criteriaQuery = criteriaBuilder.createQuery(OrderEntity.class);
+        Root<OrderEntity> root = criteriaQuery.from(OrderEntity.class);
+
+        // only the given filters go into the query, so that the matching index can be used
+        List<Predicate> predicates = new ArrayList<>();
+        if (orderSearchRequest.getAfter() != null) {
+            predicates.add(criteriaBuilder.greaterThan(root.get("id"), orderSearchRequest.getAfter()));
+        }
+        if (orderSearchRequest.getStatus() != null) {
+            predicates.add(criteriaBuilder.equal(root.get("status"), orderSearchRequest.getStatus()));
+        }
+        if (orderSearchRequest.getUserId() != null) {
+            predicates.add(criteriaBuilder.equal(root.get("userEntity").get("id"), orderSearchRequest.getUserId()));
+        }
+        if (orderSearchRequest.getFrom() != null) {
+            predicates.add(criteriaBuilder.greaterThanOrEqualTo(root.get("createdTimestamp"), orderSearchRequest.getFrom()));
+        }
+        if (orderSearchRequest.getTo() != null) {
+            predicates.add(criteriaBuilder.lessThan(root.get("createdTimestamp"), orderSearchRequest.getTo()));
+        }
+
+        criteriaQuery.select(root)
+                .where(predicates.toArray(new Predicate[0]))
+                .orderBy(criteriaBuilder.asc(root.get("id")));
+        return entityManager.createQuery(criteriaQuery);
+    }
+}
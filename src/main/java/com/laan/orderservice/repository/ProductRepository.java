@@ -2,6 +2,20 @@ package com.laan.orderservice.repository;
 
 import com.laan.orderservice.entity.ProductEntity;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
-public interface ProductRepository extends JpaRepository<ProductEntity, Long> {
+import javax.persistence.LockModeType;
+import java.util.Collection;
+import java.util.List;
+
+public interface ProductRepository extends JpaRepository<ProductEntity, Long>, ProductRepositoryCustom {
+
+    /**
+     * Reads and locks the products in the order of id, so that concurrent lockers cannot deadlock
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select p from ProductEntity p where p.id in :ids order by p.id")
+    List<ProductEntity> findAllByIdInForUpdate(@Param("ids") Collection<Long> ids);
 }
@@ -0,0 +1,17 @@
+package com.laan.orderservice.repository;
+
+import java.util.Map;
+
+public interface ProductRepositoryCustom {
+
+    /**
+     * Deducts the given quantities from the stocks of the products with a single conditional update.
+     * A product is updated only if its stock covers the requested quantity, a negative quantity gives stock back.
+     * The update locks the rows in the order the engine scans them, whatever the order of the map, so lock them
+     * in the order of id first with findAllByIdInForUpdate, in the same transaction.
+     * @param quantities quantities to be deducted, keyed by product id
+     * @return number of products updated
+     */
+    int deductQuantities(Map<Long, Integer> quantities);
+
+}
@@ -0,0 +1,40 @@
+package com.laan.orderservice.repository;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import javax.persistence.Query;
+import java.util.Map;
+
+public class ProductRepositoryCustomImpl implements ProductRepositoryCustom {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public int deductQuantities(Map<Long, Integer> quantities) {
+        if (quantities.isEmpty()) {
+            return 0;
+        }
+
+        // update product set quantity = quantity - case id when ... end where (id = ? and quantity >= ?) or ...
+        StringBuilder caseClause = new StringBuilder("case p.id");
+        StringBuilder whereClause = new StringBuilder();
+        for (int i = 0; i < quantities.size(); i++) {
+            caseClause.append(" when :id").append(i).append(" then :quantity").append(i);
+            if (i > 0) {
+                whereClause.append(" or ");
+            }
+            whereClause.append("(p.id = :id").append(i).append(" and p.quantity >= :quantity").append(i).append(")");
+        }
+        caseClause.append(" end");
+
+        Query query = entityManager.createQuery("update ProductEntity p set p.quantity = p.quantity - " + caseClause + " where " + whereClause);
+        int index = 0;
+        for (Map.Entry<Long, Integer> entry : quantities.entrySet()) {
+            query.setParameter("id" + index, entry.getKey());
+            query.setParameter("quantity" + index, entry.getValue());
+            index++;
+        }
+        return query.executeUpdate();
+    }
+}
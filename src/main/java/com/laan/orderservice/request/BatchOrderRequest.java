@@ -0,0 +1,26 @@
+package com.laan.orderservice.request;
+
+import lombok.Getter;
+import lombok.Setter;
+import lombok.ToString;
+
+import javax.validation.Valid;
+import javax.validation.constraints.NotEmpty;
+import javax.validation.constraints.Size;
+import java.util.List;
+
+/**
+ * Contains new orders to be placed together
+ *
+ * @author Lalanke Athauda
+ */
+@Getter
+@Setter
+@ToString
+public class BatchOrderRequest {
+
+    @NotEmpty(message = "Batch should have at least one order")
+    @Size(max = 500, message = "Batch cannot have more than 500 orders")
+    @Valid private List<OrderRequest> orders;
+
+}
@@ -0,0 +1,26 @@
+package com.laan.orderservice.request;
+
+import lombok.Getter;
+import lombok.Setter;
+import lombok.ToString;
+
+import javax.validation.Valid;
+import javax.validation.constraints.NotEmpty;
+import javax.validation.constraints.Size;
+import java.util.List;
+
+/**
+ * Contains status changes of many orders to be applied together
+ *
+ * @author Lalanke Athauda
+ */
+@Getter
+@Setter
+@ToString
+public class BatchOrderStatusRequest {
+
+    @NotEmpty(message = "Batch should have at least one order")
+    @Size(max = 500, message = "Batch cannot have more than 500 orders")
+    @Valid private List<OrderStatusRequest> orders;
+
+}
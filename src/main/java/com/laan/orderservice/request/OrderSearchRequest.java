@@ -0,0 +1,57 @@
+package com.laan.orderservice.request;
+
+import com.laan.orderservice.enums.OrderStatus;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.ToString;
+import org.springframework.format.annotation.DateTimeFormat;
+
+import javax.validation.constraints.Max;
+import javax.validation.constraints.Min;
+import java.util.Date;
+
+/**
+ * Contains filters and the cursor of get orders requests
+ *
+ * @author Lalanke Athauda
+ */
+@Getter
+@Setter
+@ToString
+public class OrderSearchRequest {
+
+    private OrderStatus status;
+
+    private Long userId;
+
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+    private Date from;
+
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+    private Date to;
+
+    /**
+     * id of the last order of the previous page
+     */
+    private Long after;
+
+    @Min(value = 1, message = "limit should be at least 1")
+    @Max(value = 500, message = "limit should be at most 500")
+    private Integer limit = 50;
+
+    /**
+     * whether the products of each order should be sent with the page
+     */
+    private boolean includeProducts;
+
+    /**
+     * Keeps the default limit when the limit is sent without a value
+     * @param limit most orders of a page
+     */
+    public void setLimit(Integer limit) {
+        if (limit != null) {
+            this.limit = limit;
+        }
+    }
+
+}
@@ -0,0 +1,26 @@
+package com.laan.orderservice.request;
+
+import com.laan.orderservice.enums.OrderStatus;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.ToString;
+
+import javax.validation.constraints.NotNull;
+
+/**
+ * Contains the new status of an order
+ *
+ * @author Lalanke Athauda
+ */
+@Getter
+@Setter
+@ToString
+public class OrderStatusRequest {
+
+    @NotNull(message = "order id is mandatory")
+    private Long id;
+
+    @NotNull(message = "status is mandatory")
+    private OrderStatus status;
+
+}
@@ -0,0 +1,32 @@
+package com.laan.orderservice.response;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.laan.orderservice.enums.BatchItemStatus;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.ToString;
+
+@Getter
+@Setter
+@ToString
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class BatchItemResponse {
+
+    /**
+     * position of the item in the batch request
+     */
+    private int index;
+
+    private BatchItemStatus status;
+
+    /**
+     * saved order, only when the item succeeded
+     */
+    private OrderResponse order;
+
+    /**
+     * reason of the failure, only when the item failed
+     */
+    private String message;
+
+}
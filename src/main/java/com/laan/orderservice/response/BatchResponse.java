@@ -0,0 +1,19 @@
+package com.laan.orderservice.response;
+
+import lombok.Getter;
+import lombok.Setter;
+import lombok.ToString;
+
+import java.util.List;
+
+@Getter
+@Setter
+@ToString
+public class BatchResponse {
+
+    /**
+     * result of every item, in the order of the request
+     */
+    private List<BatchItemResponse> results;
+
+}
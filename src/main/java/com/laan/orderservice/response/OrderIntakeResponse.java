@@ -0,0 +1,32 @@
+package com.laan.orderservice.response;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.laan.orderservice.enums.IntakeStatus;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.ToString;
+
+@Getter
+@Setter
+@ToString
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class OrderIntakeResponse {
+
+    /**
+     * id to poll the intake with, at /orders/intake/{trackingId}
+     */
+    private String trackingId;
+
+    private IntakeStatus status;
+
+    /**
+     * id of the placed order, only when the order is created
+     */
+    private Long orderId;
+
+    /**
+     * reason of the rejection, only when the order is rejected
+     */
+    private String message;
+
+}
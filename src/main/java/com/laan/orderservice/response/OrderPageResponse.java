@@ -0,0 +1,21 @@
+package com.laan.orderservice.response;
+
+import lombok.Getter;
+import lombok.Setter;
+import lombok.ToString;
+
+import java.util.List;
+
+@Getter
+@Setter
+@ToString
+public class OrderPageResponse {
+
+    private List<OrderResponse> orders;
+
+    /**
+     * cursor to be sent as after to get the next page, null on the last page
+     */
+    private Long nextCursor;
+
+}
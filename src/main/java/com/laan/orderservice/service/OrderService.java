@@ -1,16 +1,27 @@
 package com.laan.orderservice.service;
 
 import com.laan.orderservice.enums.OrderStatus;
+import com.laan.orderservice.request.BatchOrderRequest;
+import com.laan.orderservice.request.BatchOrderStatusRequest;
 import com.laan.orderservice.request.OrderRequest;
+import com.laan.orderservice.request.OrderSearchRequest;
+import com.laan.orderservice.response.BatchResponse;
+import com.laan.orderservice.response.OrderPageResponse;
 import com.laan.orderservice.response.OrderResponse;
 
-import java.util.List;
+import java.util.function.Consumer;
 
 public interface OrderService {
 
     OrderResponse addOrder(OrderRequest orderRequest);
 
-    List<OrderResponse> getOrders();
+    OrderResponse addOrder(OrderRequest orderRequest, String idempotencyKey);
+
+    BatchResponse addOrders(BatchOrderRequest batchOrderRequest);
+
+    OrderPageResponse getOrders(OrderSearchRequest orderSearchRequest);
+
+    void streamOrders(OrderSearchRequest orderSearchRequest, Consumer<OrderResponse> consumer);
 
     OrderResponse getOrder(Long id);
 
@@ -18,6 +29,8 @@ public interface OrderService {
 
     OrderResponse updateOrderStatus(Long id, OrderStatus orderStatus);
 
+    BatchResponse updateOrderStatuses(BatchOrderStatusRequest batchOrderStatusRequest);
+
     void deleteOrder(Long id);
 
 }
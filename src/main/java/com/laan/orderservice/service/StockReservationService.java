@@ -0,0 +1,13 @@
+package com.laan.orderservice.service;
+
+import java.util.Map;
+
+public interface StockReservationService {
+
+    void reserve(Map<Long, Integer> quantities);
+
+    Map<Integer, RuntimeException> reserveAll(Map<Integer, Map<Long, Integer>> quantitiesByOrder);
+
+    void release(Map<Long, Integer> quantities);
+
+}
@@ -1,32 +1,62 @@
 package com.laan.orderservice.service.impl;
 
+import com.laan.orderservice.cache.CatalogProduct;
+import com.laan.orderservice.cache.OrderResponseCache;
+import com.laan.orderservice.calculator.OrderPriceCalculator;
 import com.laan.orderservice.converter.OrderConverter;
 import com.laan.orderservice.entity.OrderEntity;
 import com.laan.orderservice.entity.OrderProductEntity;
 import com.laan.orderservice.entity.ProductEntity;
 import com.laan.orderservice.entity.UserEntity;
+import com.laan.orderservice.enums.BatchItemStatus;
 import com.laan.orderservice.enums.OrderStatus;
+import com.laan.orderservice.exception.InvalidOrderStatusException;
+import com.laan.orderservice.exception.ProductNotFoundException;
+import com.laan.orderservice.exception.QuantityMismatchException;
+import com.laan.orderservice.exception.UserNotFoundException;
+import com.laan.orderservice.idempotency.OrderIdempotencyHandler;
+import com.laan.orderservice.messaging.OrderEventPublisher;
+import com.laan.orderservice.projection.OrderLineProjection;
 import com.laan.orderservice.repository.OrderProductRepository;
 import com.laan.orderservice.repository.OrderRepository;
 import com.laan.orderservice.repository.ProductRepository;
 import com.laan.orderservice.repository.UserRepository;
+import com.laan.orderservice.request.BatchOrderRequest;
+import com.laan.orderservice.request.BatchOrderStatusRequest;
 import com.laan.orderservice.request.OrderRequest;
-import com.laan.orderservice.request.ProductRequest;
+import com.laan.orderservice.request.OrderSearchRequest;
+import com.laan.orderservice.request.OrderStatusRequest;
+import com.laan.orderservice.response.BatchItemResponse;
+import com.laan.orderservice.response.BatchResponse;
+import com.laan.orderservice.response.OrderPageResponse;
 import com.laan.orderservice.response.OrderResponse;
 import com.laan.orderservice.service.OrderService;
+import com.laan.orderservice.service.StockReservationService;
+import com.laan.orderservice.transaction.RetryingTransactionExecutor;
+import com.laan.orderservice.validator.OrderValidationContext;
 import com.laan.orderservice.validator.OrderValidator;
+import io.micrometer.core.annotation.Timed;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.jms.core.JmsTemplate;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
-import javax.jms.Queue;
 import java.math.BigDecimal;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
-import java.util.Optional;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
 
 /**
  * Order processing service
@@ -34,6 +64,7 @@ import java.util.Optional;
  * @author Lalanke Athauda
  */
 @Service
+@Timed(value = "order-service.service", histogram = true)
 public class OrderServiceImpl implements OrderService {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(OrderServiceImpl.class);
@@ -50,22 +81,45 @@ public class OrderServiceImpl implements OrderService {
 
     private final OrderConverter orderConverter;
 
-    private final JmsTemplate jmsTemplate;
+    private final OrderEventPublisher orderEventPublisher;
 
-    private final Queue queue;
+    private final StockReservationService stockReservationService;
+
+    private final RetryingTransactionExecutor transactionExecutor;
+
+    private final OrderPriceCalculator orderPriceCalculator;
+
+    private final OrderIdempotencyHandler orderIdempotencyHandler;
+
+    private final OrderResponseCache orderResponseCache;
+
+    private final TransactionTemplate readOnlyTransactionTemplate;
+
+    private final int streamPageSize;
 
     @Autowired
     public OrderServiceImpl(OrderValidator orderValidator, UserRepository userRepository, ProductRepository productRepository,
                             OrderRepository orderRepository, OrderProductRepository orderProductRepository, OrderConverter orderConverter,
-                            JmsTemplate jmsTemplate, Queue queue) {
+                            OrderEventPublisher orderEventPublisher, StockReservationService stockReservationService,
+                            RetryingTransactionExecutor transactionExecutor, OrderPriceCalculator orderPriceCalculator,
+                            OrderIdempotencyHandler orderIdempotencyHandler, OrderResponseCache orderResponseCache,
+                            PlatformTransactionManager transactionManager,
+                            @Value("${order-service.orders.stream-page-size}") int streamPageSize) {
         this.orderValidator = orderValidator;
         this.userRepository = userRepository;
         this.productRepository = productRepository;
         this.orderRepository = orderRepository;
         this.orderProductRepository = orderProductRepository;
         this.orderConverter = orderConverter;
-        this.jmsTemplate = jmsTemplate;
-        this.queue = queue;
+        this.orderEventPublisher = orderEventPublisher;
+        this.stockReservationService = stockReservationService;
+        this.transactionExecutor = transactionExecutor;
+        this.orderPriceCalculator = orderPriceCalculator;
+        this.orderIdempotencyHandler = orderIdempotencyHandler;
+        this.orderResponseCache = orderResponseCache;
+        this.readOnlyTransactionTemplate = new TransactionTemplate(transactionManager);
+        this.readOnlyTransactionTemplate.setReadOnly(true);
+        this.streamPageSize = streamPageSize;
     }
 
     /**
@@ -75,37 +129,80 @@ public class OrderServiceImpl implements OrderService {
      */
     @Override
     public OrderResponse addOrder(OrderRequest orderRequest) {
-        LOGGER.info("validates new order");
-        orderValidator.validateNewOrderRequest(orderRequest);
-
-        UserEntity userEntity = userRepository.findById(orderRequest.getUserId()).get();
-
-        List<ProductRequest> productRequests = orderRequest.getProducts();
-
-        OrderEntity orderEntity = new OrderEntity();
-        orderEntity.setUserEntity(userEntity);
-        orderEntity.setStatus(OrderStatus.PENDING);
+        return transactionExecutor.execute(() -> createOrder(orderRequest));
+    }
 
-        List<OrderProductEntity> orderProductEntities = createOrderProductEntities(productRequests, orderEntity);
+    /**
+     * creates a new order once per idempotency key, a retried request gets the response of the first one
+     * @param orderRequest new order request
+     * @param idempotencyKey key sent by the client, a new order is created every time when null
+     * @return OrderResponse saved order details
+     */
+    @Override
+    public OrderResponse addOrder(OrderRequest orderRequest, String idempotencyKey) {
+        if (idempotencyKey == null) {
+            return addOrder(orderRequest);
+        }
+        return orderIdempotencyHandler.placeOnce(idempotencyKey, orderRequest, () -> createOrder(orderRequest));
+    }
 
-        orderEntity.setTotalPrice(calculateOrderTotalPrice(orderProductEntities));
-        orderEntity.setCreatedTimestamp(new Date());
+    /**
+     * creates many new orders in one transaction, an order failing validation or stock reservation is rejected
+     * without failing the others
+     * @param batchOrderRequest new order requests
+     * @return BatchResponse with the result of every order, in the order of the request
+     */
+    @Override
+    public BatchResponse addOrders(BatchOrderRequest batchOrderRequest) {
+        return transactionExecutor.execute(() -> createOrders(batchOrderRequest.getOrders()));
+    }
 
-        LOGGER.info("saves new order");
-        OrderEntity savedOrderEntity = orderRepository.save(orderEntity);
-        orderProductRepository.saveAll(orderProductEntities);
+    /**
+     * Retrieves a page of the orders matching the filters
+     * @param orderSearchRequest filters and the cursor of the page
+     * @return OrderPageResponse with the orders and the cursor of the next page
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public OrderPageResponse getOrders(OrderSearchRequest orderSearchRequest) {
+        int limit = orderSearchRequest.getLimit();
+        // one more order than requested tells whether there is a next page
+        List<OrderEntity> orderEntities = orderRepository.findPage(orderSearchRequest, limit + 1);
+        boolean hasNextPage = orderEntities.size() > limit;
+        if (hasNextPage) {
+            orderEntities = orderEntities.subList(0, limit);
+        }
 
-        return orderConverter.convertEntityToResponse(savedOrderEntity, orderProductEntities);
+        OrderPageResponse orderPageResponse = new OrderPageResponse();
+        if (orderSearchRequest.isIncludeProducts() && !orderEntities.isEmpty()) {
+            // products of the whole page are read with a single query
+            List<Long> ids = orderEntities.stream().map(OrderEntity::getId).collect(Collectors.toList());
+            orderPageResponse.setOrders(orderConverter.convertProjectionsToResponses(orderRepository.findOrderLinesByIdIn(ids)));
+        } else {
+            orderPageResponse.setOrders(orderConverter.convertEntitiesToResponses(orderEntities));
+        }
+        orderPageResponse.setNextCursor(hasNextPage ? orderEntities.get(limit - 1).getId() : null);
+        return orderPageResponse;
     }
 
     /**
-     * Retrieves all orders
-     * @return List of all orders
+     * Sends all the orders matching the filters to the consumer, page by page. Every page is read in a short read only
+     * transaction of its own, so no connection is held while the consumer writes the orders to a slow client.
+     * @param orderSearchRequest filters and the cursor to start from
+     * @param consumer receives the orders one by one
      */
     @Override
-    public List<OrderResponse> getOrders() {
-        List<OrderEntity> orderEntities = orderRepository.findAll();
-        return orderConverter.convertEntitiesToResponses(orderEntities);
+    public void streamOrders(OrderSearchRequest orderSearchRequest, Consumer<OrderResponse> consumer) {
+        OrderSearchRequest pageRequest = createPageRequest(orderSearchRequest);
+        List<OrderResponse> orderResponses;
+        do {
+            orderResponses = readOnlyTransactionTemplate.execute(status ->
+                    orderConverter.convertEntitiesToResponses(orderRepository.findPage(pageRequest, streamPageSize)));
+            orderResponses.forEach(consumer);
+            if (!orderResponses.isEmpty()) {
+                pageRequest.setAfter(orderResponses.get(orderResponses.size() - 1).getId());
+            }
+        } while (orderResponses.size() == streamPageSize);
     }
 
     /**
@@ -114,12 +211,22 @@ public class OrderServiceImpl implements OrderService {
      * @return Order of specified id
      */
     @Override
+    @Transactional(readOnly = true)
     public OrderResponse getOrder(Long id) {
+        // the version is read from the primary key index, the cached response is only served for the current version
+        Long version = orderRepository.findVersionById(id).orElse(null);
+        OrderResponse cachedOrderResponse = version == null ? null : orderResponseCache.get(id, version);
+        if (cachedOrderResponse != null) {
+            return cachedOrderResponse;
+        }
+
+        // order and its lines are read with a single query
+        List<OrderLineProjection> orderLineProjections = orderRepository.findOrderLinesById(id);
         LOGGER.info("validates order with existing data");
-        orderValidator.validateOrderId(id);
-        OrderEntity orderEntity = orderRepository.findById(id).get();
-        List<OrderProductEntity> orderProductEntities = orderProductRepository.findAllByOrderEntity(orderEntity).get();
-        return orderConverter.convertEntityToResponse(orderEntity, orderProductEntities);
+        orderValidator.validateOrderLines(id, orderLineProjections);
+        OrderResponse orderResponse = orderConverter.convertProjectionsToResponses(orderLineProjections).get(0);
+        orderResponseCache.put(orderResponse);
+        return orderResponse;
     }
 
     /**
@@ -130,137 +237,345 @@ public class OrderServiceImpl implements OrderService {
      */
     @Override
     public OrderResponse updateOrder(Long id, OrderRequest orderRequest) {
+        OrderResponse orderResponse = transactionExecutor.execute(() -> modifyOrder(id, orderRequest));
+        // the response has only the products of the request, the lines left out of it stay with the order;
+        // the next read caches the order again
+        orderResponseCache.evict(id);
+        return orderResponse;
+    }
+
+    /**
+     * Deletes an existing order
+     * @param id order id needs to be deleted
+     */
+    @Override
+    public void deleteOrder(Long id) {
+        transactionExecutor.execute(() -> removeOrder(id));
+        orderResponseCache.evict(id);
+    }
+
+    /**
+     * Updates the status of the order
+     * @param id valid order id
+     * @param orderStatus new status to be updated
+     * @return OrderResponse with updated status
+     */
+    public OrderResponse updateOrderStatus(Long id, OrderStatus orderStatus) {
+        OrderResponse orderResponse = transactionExecutor.execute(() -> changeOrderStatus(id, orderStatus));
+        // the status response has no products, the next read caches the order again
+        orderResponseCache.evict(id);
+        return orderResponse;
+    }
+
+    /**
+     * Updates the statuses of many orders in one transaction, an order which cannot be found or cannot be turned
+     * to its new status is left as it is without failing the others
+     * @param batchOrderStatusRequest orders with their new statuses
+     * @return BatchResponse with the result of every order, in the order of the request
+     */
+    @Override
+    public BatchResponse updateOrderStatuses(BatchOrderStatusRequest batchOrderStatusRequest) {
+        BatchResponse batchResponse = transactionExecutor.execute(() -> changeOrderStatuses(batchOrderStatusRequest.getOrders()));
+        for (OrderStatusRequest orderStatusRequest : batchOrderStatusRequest.getOrders()) {
+            orderResponseCache.evict(orderStatusRequest.getId());
+        }
+        return batchResponse;
+    }
+
+    private OrderResponse createOrder(OrderRequest orderRequest) {
+        LOGGER.info("validates new order");
+        OrderValidationContext validationContext = orderValidator.validateNewOrderRequest(orderRequest);
+
+        // user is already validated, a reference is enough to link the order
+        UserEntity userEntity = userRepository.getReferenceById(orderRequest.getUserId());
+
+        // a product repeated in the request becomes one line with the summed quantity
+        Map<Long, Integer> quantities = orderConverter.convertRequestsToQuantities(orderRequest.getProducts());
+
+        OrderEntity orderEntity = new OrderEntity();
+        orderEntity.setUserEntity(userEntity);
+        orderEntity.setStatus(OrderStatus.PENDING);
+
+        List<OrderProductEntity> orderProductEntities = createOrderProductEntities(quantities, validationContext.getCatalogProducts(), orderEntity);
+
+        orderEntity.setTotalPrice(orderPriceCalculator.calculateOrderTotalPrice(orderProductEntities));
+        orderEntity.setCreatedTimestamp(new Date());
+
+        // deduct all the stocks at once, only if every product still has enough
+        stockReservationService.reserve(quantities);
+
+        LOGGER.info("saves new order");
+        OrderEntity savedOrderEntity = orderRepository.save(orderEntity);
+        orderProductRepository.saveAll(orderProductEntities);
+
+        return orderConverter.convertEntityToResponse(savedOrderEntity, orderProductEntities);
+    }
+
+    private BatchResponse createOrders(List<OrderRequest> orderRequests) {
+        LOGGER.info("validates {} new orders", orderRequests.size());
+        // products of the whole batch are read from the catalog at once
+        Map<Long, CatalogProduct> catalogProducts = orderValidator.findCatalogProducts(orderRequests);
+
+        BatchItemResponse[] results = new BatchItemResponse[orderRequests.size()];
+        Map<Integer, Map<Long, Integer>> quantitiesByOrder = new LinkedHashMap<>();
+        for (int index = 0; index < orderRequests.size(); index++) {
+            OrderRequest orderRequest = orderRequests.get(index);
+            try {
+                orderValidator.validateNewOrderRequest(orderRequest, catalogProducts);
+                quantitiesByOrder.put(index, orderConverter.convertRequestsToQuantities(orderRequest.getProducts()));
+            } catch (UserNotFoundException | ProductNotFoundException | QuantityMismatchException exception) {
+                results[index] = createBatchItemResponse(index, BatchItemStatus.REJECTED, null, exception.getMessage());
+            }
+        }
+
+        // deduct the stocks of all the valid orders at once, orders the stocks cannot supply are rejected
+        Map<Integer, RuntimeException> reservationFailures = stockReservationService.reserveAll(quantitiesByOrder);
+
+        List<OrderEntity> orderEntities = new ArrayList<>();
+        List<OrderProductEntity> orderProductEntities = new ArrayList<>();
+        Map<Integer, List<OrderProductEntity>> orderProductEntitiesByOrder = new LinkedHashMap<>();
+        for (Integer index : quantitiesByOrder.keySet()) {
+            RuntimeException reservationFailure = reservationFailures.get(index);
+            if (reservationFailure != null) {
+                results[index] = createBatchItemResponse(index, BatchItemStatus.REJECTED, null, reservationFailure.getMessage());
+                continue;
+            }
+            OrderRequest orderRequest = orderRequests.get(index);
+            Map<Long, Integer> quantities = quantitiesByOrder.get(index);
+
+            OrderEntity orderEntity = new OrderEntity();
+            orderEntity.setUserEntity(userRepository.getReferenceById(orderRequest.getUserId()));
+            orderEntity.setStatus(OrderStatus.PENDING);
+
+            List<OrderProductEntity> orderLines = createOrderProductEntities(quantities, catalogProducts, orderEntity);
+
+            orderEntity.setTotalPrice(orderPriceCalculator.calculateOrderTotalPrice(orderLines));
+            orderEntity.setCreatedTimestamp(new Date());
+
+            orderEntities.add(orderEntity);
+            orderProductEntities.addAll(orderLines);
+            orderProductEntitiesByOrder.put(index, orderLines);
+        }
+
+        LOGGER.info("saves {} new orders", orderEntities.size());
+        // orders and lines are inserted in jdbc batches
+        orderRepository.saveAll(orderEntities);
+        orderProductRepository.saveAll(orderProductEntities);
+
+        for (Map.Entry<Integer, List<OrderProductEntity>> entry : orderProductEntitiesByOrder.entrySet()) {
+            OrderEntity orderEntity = entry.getValue().get(0).getOrderEntity();
+            OrderResponse orderResponse = orderConverter.convertEntityToResponse(orderEntity, entry.getValue());
+            results[entry.getKey()] = createBatchItemResponse(entry.getKey(), BatchItemStatus.CREATED, orderResponse, null);
+        }
+        return createBatchResponse(results);
+    }
+
+    private OrderResponse modifyOrder(Long id, OrderRequest orderRequest) {
         LOGGER.info("validates order with modified data");
-        orderValidator.validateOrderRequest(id, orderRequest);
+        OrderValidationContext validationContext = orderValidator.validateOrderRequest(id, orderRequest);
 
-        OrderEntity orderEntity = orderRepository.findById(id).get();
+        OrderEntity orderEntity = validationContext.getOrderEntity();
         List<OrderProductEntity> orderProductEntities = new ArrayList<>();
 
-        List<ProductRequest> productRequests = orderRequest.getProducts();
-        for (ProductRequest productRequest : productRequests) {
-            ProductEntity productEntity = productRepository.findById(productRequest.getId()).get();
+        // quantities to be taken from (or given back to) the stocks
+        Map<Long, Integer> quantityDifferences = new HashMap<>();
+        // further lines of a product repeated in an old order, folded into its first line
+        List<OrderProductEntity> repeatedOrderProductEntities = new ArrayList<>();
+
+        // a product repeated in the request is updated once with the summed quantity
+        Map<Long, Integer> quantities = orderConverter.convertRequestsToQuantities(orderRequest.getProducts());
+        for (Map.Entry<Long, Integer> entry : quantities.entrySet()) {
+            Integer quantity = entry.getValue();
+            CatalogProduct catalogProduct = validationContext.getCatalogProducts().get(entry.getKey());
+
+            // order-products of the existing order, loaded by the validator
+            List<OrderProductEntity> existingOrderProductEntities = validationContext.getOrderProductEntities().get(entry.getKey());
+            if (existingOrderProductEntities != null) { // same product in existing order
+                OrderProductEntity existingOrderProductEntity = existingOrderProductEntities.get(0);
+                int existingQuantity = 0;
+                for (OrderProductEntity orderProductEntity : existingOrderProductEntities) {
+                    existingQuantity += orderProductEntity.getQuantity();
+                }
+                repeatedOrderProductEntities.addAll(existingOrderProductEntities.subList(1, existingOrderProductEntities.size()));
 
-            // select order-product table by order id
-            Optional<OrderProductEntity> optionalExistingOrderProductEntity = orderProductRepository.findByOrderEntityAndProductEntity(orderEntity, productEntity);
-            if (optionalExistingOrderProductEntity.isPresent()) { // same product in existing order
                 // needs to update only if quantities different from earlier order
-                OrderProductEntity existingOrderProductEntity = optionalExistingOrderProductEntity.get();
-                Integer difference = productRequest.getQuantity() - existingOrderProductEntity.getQuantity();
-                if (difference != 0) { // new value is different from the earlier order
+                Integer difference = quantity - existingQuantity;
+                if (difference != 0 || existingOrderProductEntities.size() > 1) { // new value is different from the earlier order
                     // update new value in existing one
-                    Integer quantity = productRequest.getQuantity();
-                    BigDecimal unitPrice = productEntity.getUnitPrice();
-                    BigDecimal price = calculateOrderProductPrice(unitPrice, quantity);
+                    BigDecimal unitPrice = catalogProduct.getUnitPrice();
+                    BigDecimal price = orderPriceCalculator.calculateOrderProductPrice(unitPrice, quantity);
 
-                    existingOrderProductEntity.setQuantity(productRequest.getQuantity());
+                    existingOrderProductEntity.setQuantity(quantity);
                     existingOrderProductEntity.setPrice(price);
 
-                    // update the stocks
-                    productEntity.setQuantity(productEntity.getQuantity() - difference);
-                    productRepository.save(productEntity);
+                    quantityDifferences.merge(catalogProduct.getId(), difference, Integer::sum);
                 }
                 orderProductEntities.add(existingOrderProductEntity);
             } else { // new product for existing order
                 // add new items and update stocks
-                OrderProductEntity orderProductEntity = createOrderProductEntity(productRequest, productEntity, orderEntity);
-
-                // update product with deducted quantity
-                productEntity.setQuantity(productEntity.getQuantity() - orderProductEntity.getQuantity());
-                productRepository.save(productEntity);
+                OrderProductEntity orderProductEntity = createOrderProductEntity(quantity, catalogProduct, orderEntity);
+                quantityDifferences.merge(catalogProduct.getId(), orderProductEntity.getQuantity(), Integer::sum);
 
                 orderProductEntities.add(orderProductEntity);
             }
         }
 
-        orderEntity.setTotalPrice(calculateOrderTotalPrice(orderProductEntities));
+        // update the stocks with the differences at once
+        stockReservationService.reserve(quantityDifferences);
+
+        orderEntity.setTotalPrice(orderPriceCalculator.calculateOrderTotalPrice(orderProductEntities));
         orderEntity.setCreatedTimestamp(new Date());
 
         LOGGER.info("saves order with modified data");
         OrderEntity savedOrderEntity = orderRepository.save(orderEntity);
+        if (!repeatedOrderProductEntities.isEmpty()) {
+            orderProductRepository.deleteAllInBatch(repeatedOrderProductEntities);
+        }
         orderProductRepository.saveAll(orderProductEntities);
+        // flush so that the response carries the incremented version the next update has to send
+        orderRepository.flush();
 
         return orderConverter.convertEntityToResponse(savedOrderEntity, orderProductEntities);
     }
 
-    /**
-     * Deletes an existing order
-     * @param id order id needs to be deleted
-     */
-    @Override
-    public void deleteOrder(Long id) {
+    private void removeOrder(Long id) {
         LOGGER.info("validates the order details before deleting");
-        orderValidator.validateOrderId(id);
-        orderValidator.validateOrderIsInDeletableState(id);
-
-        OrderEntity orderEntity = orderRepository.findById(id).get();
-
-        Optional<List<OrderProductEntity>> optionalOrderProductEntities = orderProductRepository.findAllByOrderEntity(orderEntity);
-
-        if (optionalOrderProductEntities.isPresent()) {
-            List<OrderProductEntity> orderProductEntities = optionalOrderProductEntities.get();
-
-            for (OrderProductEntity orderProductEntity : orderProductEntities) {
-                ProductEntity productEntity = orderProductEntity.getProductEntity();
-
-                // update product quantity
-                productEntity.setQuantity(productEntity.getQuantity() + orderProductEntity.getQuantity());
-                productRepository.save(productEntity);
-
-                // delete order-product
-                orderProductRepository.delete(orderProductEntity);
+        OrderValidationContext validationContext = orderValidator.validateOrderIsInDeletableState(id);
+
+        OrderEntity orderEntity = validationContext.getOrderEntity();
+        Map<Long, List<OrderProductEntity>> orderProductEntities = validationContext.getOrderProductEntities();
+
+        if (!orderProductEntities.isEmpty()) {
+            // give the quantities of all the lines back to the stocks
+            Map<Long, Integer> quantities = new HashMap<>();
+            List<OrderProductEntity> orderLines = new ArrayList<>();
+            for (Map.Entry<Long, List<OrderProductEntity>> entry : orderProductEntities.entrySet()) {
+                for (OrderProductEntity orderProductEntity : entry.getValue()) {
+                    quantities.merge(entry.getKey(), orderProductEntity.getQuantity(), Integer::sum);
+                    orderLines.add(orderProductEntity);
+                }
             }
+            stockReservationService.release(quantities);
+
+            // delete order-products
+            orderProductRepository.deleteAllInBatch(orderLines);
         }
 
         // delete order
         orderRepository.delete(orderEntity);
     }
 
-    /**
-     * Updates the status of the order
-     * @param id valid order id
-     * @param orderStatus new status to be updated
-     * @return OrderResponse with updated status
-     */
-    public OrderResponse updateOrderStatus(Long id, OrderStatus orderStatus) {
+    private OrderResponse changeOrderStatus(Long id, OrderStatus orderStatus) {
         LOGGER.info("validates the order with new status");
         // validates the order and status
-        orderValidator.validateOrderId(id);
-        orderValidator.validateOrderStatus(id, orderStatus);
+        OrderValidationContext validationContext = orderValidator.validateOrderStatus(id, orderStatus);
 
         // updates the order with appropriate status
-        OrderEntity orderEntity = orderRepository.findById(id).get();
+        OrderEntity orderEntity = validationContext.getOrderEntity();
         orderEntity.setStatus(orderStatus);
-        orderRepository.save(orderEntity);
+        orderRepository.saveAndFlush(orderEntity);
 
-        // put status change to event-queue
+        // put status change to event-queue, through the outbox in the same transaction
         if (orderEntity.getStatus() == OrderStatus.PROCESSING || orderEntity.getStatus() == OrderStatus.COMPLETED) {
-            LOGGER.info("adding status updated order details to queue");
-            jmsTemplate.convertAndSend(queue, orderEntity);
+            LOGGER.info("adding status updated order details to outbox");
+            orderEventPublisher.publishStatusChanged(orderEntity);
         }
 
         return orderConverter.convertEntityToResponse(orderEntity);
     }
 
-    private List<OrderProductEntity> createOrderProductEntities(List<ProductRequest> productRequests,
+    private BatchResponse changeOrderStatuses(List<OrderStatusRequest> orderStatusRequests) {
+        LOGGER.info("validates {} orders with new statuses", orderStatusRequests.size());
+        // orders of the whole batch are read with a single query
+        Set<Long> ids = new HashSet<>();
+        for (OrderStatusRequest orderStatusRequest : orderStatusRequests) {
+            ids.add(orderStatusRequest.getId());
+        }
+        Map<Long, OrderEntity> orderEntities = new HashMap<>();
+        for (OrderEntity orderEntity : orderRepository.findAllById(ids)) {
+            orderEntities.put(orderEntity.getId(), orderEntity);
+        }
+
+        BatchItemResponse[] results = new BatchItemResponse[orderStatusRequests.size()];
+        Map<Integer, OrderEntity> updatedOrderEntities = new LinkedHashMap<>();
+        Set<Long> seenIds = new HashSet<>();
+        for (int index = 0; index < orderStatusRequests.size(); index++) {
+            OrderStatusRequest orderStatusRequest = orderStatusRequests.get(index);
+            OrderEntity orderEntity = orderEntities.get(orderStatusRequest.getId());
+            if (orderEntity == null) {
+                results[index] = createBatchItemResponse(index, BatchItemStatus.NOT_FOUND, null, "Order cannot be found for id: " + orderStatusRequest.getId());
+                continue;
+            }
+            // an order changes once per batch, so that every change gets its own version and event
+            if (!seenIds.add(orderStatusRequest.getId())) {
+                results[index] = createBatchItemResponse(index, BatchItemStatus.REJECTED, null, "Order id: " + orderStatusRequest.getId() + " is repeated in the batch");
+                continue;
+            }
+            try {
+                orderValidator.validateOrderStatus(orderEntity, orderStatusRequest.getStatus());
+            } catch (InvalidOrderStatusException exception) {
+                results[index] = createBatchItemResponse(index, BatchItemStatus.REJECTED, null, exception.getMessage());
+                continue;
+            }
+            orderEntity.setStatus(orderStatusRequest.getStatus());
+            updatedOrderEntities.put(index, orderEntity);
+        }
+
+        // flush so that the events and the responses carry the new versions
+        orderRepository.flush();
+
+        for (Map.Entry<Integer, OrderEntity> entry : updatedOrderEntities.entrySet()) {
+            OrderEntity orderEntity = entry.getValue();
+            if (orderEntity.getStatus() == OrderStatus.PROCESSING || orderEntity.getStatus() == OrderStatus.COMPLETED) {
+                orderEventPublisher.publishStatusChanged(orderEntity);
+            }
+            results[entry.getKey()] = createBatchItemResponse(entry.getKey(), BatchItemStatus.UPDATED, orderConverter.convertEntityToResponse(orderEntity), null);
+        }
+        return createBatchResponse(results);
+    }
+
+    private BatchItemResponse createBatchItemResponse(int index, BatchItemStatus status, OrderResponse orderResponse, String message) {
+        BatchItemResponse batchItemResponse = new BatchItemResponse();
+        batchItemResponse.setIndex(index);
+        batchItemResponse.setStatus(status);
+        batchItemResponse.setOrder(orderResponse);
+        batchItemResponse.setMessage(message);
+        return batchItemResponse;
+    }
+
+    private OrderSearchRequest createPageRequest(OrderSearchRequest orderSearchRequest) {
+        // the cursor moves page by page on a copy, the request of the caller is left as it is
+        OrderSearchRequest pageRequest = new OrderSearchRequest();
+        pageRequest.setStatus(orderSearchRequest.getStatus());
+        pageRequest.setUserId(orderSearchRequest.getUserId());
+        pageRequest.setFrom(orderSearchRequest.getFrom());
+        pageRequest.setTo(orderSearchRequest.getTo());
+        pageRequest.setAfter(orderSearchRequest.getAfter());
+        return pageRequest;
+    }
+
+    private BatchResponse createBatchResponse(BatchItemResponse[] results) {
+        BatchResponse batchResponse = new BatchResponse();
+        batchResponse.setResults(Arrays.asList(results));
+        return batchResponse;
+    }
+
+    private List<OrderProductEntity> createOrderProductEntities(Map<Long, Integer> quantities, Map<Long, CatalogProduct> catalogProducts,
                                                                 OrderEntity orderEntity) {
         List<OrderProductEntity> orderProductEntities = new ArrayList<>();
-        for (ProductRequest productRequest : productRequests) {
-            ProductEntity productEntity = productRepository.findById(productRequest.getId()).get();
-            OrderProductEntity orderProductEntity = createOrderProductEntity(productRequest, productEntity, orderEntity);
-
+        for (Map.Entry<Long, Integer> entry : quantities.entrySet()) {
+            CatalogProduct catalogProduct = catalogProducts.get(entry.getKey());
+            OrderProductEntity orderProductEntity = createOrderProductEntity(entry.getValue(), catalogProduct, orderEntity);
             orderProductEntities.add(orderProductEntity);
-
-            // update product with deducted quantity
-            productEntity.setQuantity(productEntity.getQuantity() - orderProductEntity.getQuantity());
-            productRepository.save(productEntity);
         }
         return orderProductEntities;
     }
 
-    private OrderProductEntity createOrderProductEntity(ProductRequest productRequest, ProductEntity productEntity, OrderEntity orderEntity) {
-        Integer quantity = productRequest.getQuantity();
-        BigDecimal unitPrice = productEntity.getUnitPrice();
-        BigDecimal price = calculateOrderProductPrice(unitPrice, quantity);
+    private OrderProductEntity createOrderProductEntity(Integer quantity, CatalogProduct catalogProduct, OrderEntity orderEntity) {
+        BigDecimal unitPrice = catalogProduct.getUnitPrice();
+        // product is already validated, a reference is enough to link the line
+        ProductEntity productEntity = productRepository.getReferenceById(catalogProduct.getId());
+        BigDecimal price = orderPriceCalculator.calculateOrderProductPrice(unitPrice, quantity);
 
         OrderProductEntity orderProductEntity = new OrderProductEntity();
         orderProductEntity.setOrderEntity(orderEntity);
@@ -272,16 +587,4 @@ public class OrderServiceImpl implements OrderService {
 
         return orderProductEntity;
     }
-
-    private BigDecimal calculateOrderProductPrice(BigDecimal unitPrice, Integer quantity) {
-        return unitPrice.multiply(BigDecimal.valueOf(quantity));
-    }
-
-    private BigDecimal calculateOrderTotalPrice(List<OrderProductEntity> orderProductEntities) {
-        BigDecimal totalPrice = new BigDecimal("0");
-        for (OrderProductEntity orderProductEntity : orderProductEntities) {
-            totalPrice = totalPrice.add(orderProductEntity.getPrice());
-        }
-        return totalPrice;
-    }
 }
@@ -0,0 +1,189 @@
+package com.laan.orderservice.service.impl;
+
+import com.laan.orderservice.cache.CatalogCache;
+import com.laan.orderservice.entity.ProductEntity;
+import com.laan.orderservice.exception.ProductNotFoundException;
+import com.laan.orderservice.exception.QuantityMismatchException;
+import com.laan.orderservice.inventory.HotStockLedger;
+import com.laan.orderservice.repository.ProductRepository;
+import com.laan.orderservice.service.StockReservationService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Reserves and releases product stocks with conditional updates on the database,
+ * instead of reading the quantity and writing a new value back.
+ * Must be called inside the transaction of the order which owns the reservation,
+ * so that a failure later in the order gives the stocks back with the rollback.
+ *
+ * @author Lalanke Athauda
+ */
+@Service
+public class StockReservationServiceImpl implements StockReservationService {
+
+    private final ProductRepository productRepository;
+
+    private final CatalogCache catalogCache;
+
+    private final HotStockLedger hotStockLedger;
+
+    @Autowired
+    public StockReservationServiceImpl(ProductRepository productRepository, CatalogCache catalogCache, HotStockLedger hotStockLedger) {
+        this.productRepository = productRepository;
+        this.catalogCache = catalogCache;
+        this.hotStockLedger = hotStockLedger;
+    }
+
+    /**
+     * Deducts the quantities from the stocks, all or nothing
+     * @param quantities quantities to be reserved keyed by product id, a negative quantity releases stock
+     */
+    @Override
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void reserve(Map<Long, Integer> quantities) {
+        // quantities of a product are merged into one, sorted so that a failure names the same product every time
+        Map<Long, Integer> orderedQuantities = new TreeMap<>();
+        for (Map.Entry<Long, Integer> entry : quantities.entrySet()) {
+            orderedQuantities.merge(entry.getKey(), entry.getValue(), Integer::sum);
+        }
+        orderedQuantities.values().removeIf(quantity -> quantity == 0);
+
+        // hot products are reserved in memory, without touching their rows
+        Map<Long, Integer> hotQuantities = takeHotQuantities(orderedQuantities);
+        if (!hotQuantities.isEmpty()) {
+            RuntimeException failure = hotStockLedger.tryReserve(hotQuantities);
+            if (failure != null) {
+                throw failure;
+            }
+        }
+        if (orderedQuantities.isEmpty()) {
+            return;
+        }
+
+        // always lock the product rows in the order of product id before updating them, so that concurrent orders
+        // cannot deadlock; the rows stay locked until the end of the transaction, so the stocks read here are the
+        // ones deducted
+        RuntimeException failure = findReservationFailure(orderedQuantities, lockStocks(orderedQuantities.keySet()));
+        if (failure != null) {
+            throw failure;
+        }
+        deductLockedStocks(orderedQuantities);
+    }
+
+    /**
+     * Reserves the stocks of many orders with one locking read and one update. Orders are served one after the other
+     * in the given order, an order whose products cannot all be supplied is left out without holding any stock.
+     * @param quantitiesByOrder quantities to be reserved keyed by product id, for each order keyed by its position
+     * @return failures of the orders that could not be reserved, keyed by their position
+     */
+    @Override
+    @Transactional(propagation = Propagation.MANDATORY)
+    public Map<Integer, RuntimeException> reserveAll(Map<Integer, Map<Long, Integer>> quantitiesByOrder) {
+        Set<Long> productIds = new HashSet<>();
+        for (Map<Long, Integer> quantities : quantitiesByOrder.values()) {
+            for (Long productId : quantities.keySet()) {
+                if (!hotStockLedger.isHot(productId)) {
+                    productIds.add(productId);
+                }
+            }
+        }
+
+        // the rows stay locked until the end of the transaction, so the stocks read here are the ones deducted
+        Map<Long, Integer> stocks = productIds.isEmpty() ? new HashMap<>() : lockStocks(productIds);
+
+        Map<Integer, RuntimeException> failures = new HashMap<>();
+        Map<Long, Integer> reservedQuantities = new HashMap<>();
+        for (Map.Entry<Integer, Map<Long, Integer>> orderEntry : quantitiesByOrder.entrySet()) {
+            Map<Long, Integer> quantities = new HashMap<>(orderEntry.getValue());
+            Map<Long, Integer> hotQuantities = takeHotQuantities(quantities);
+            RuntimeException failure = findReservationFailure(quantities, stocks);
+            if (failure == null && !hotQuantities.isEmpty()) {
+                failure = hotStockLedger.tryReserve(hotQuantities);
+            }
+            if (failure != null) {
+                failures.put(orderEntry.getKey(), failure);
+                continue;
+            }
+            for (Map.Entry<Long, Integer> entry : quantities.entrySet()) {
+                stocks.merge(entry.getKey(), -entry.getValue(), Integer::sum);
+                reservedQuantities.merge(entry.getKey(), entry.getValue(), Integer::sum);
+            }
+        }
+        reservedQuantities.values().removeIf(quantity -> quantity == 0);
+        deductLockedStocks(reservedQuantities);
+        return failures;
+    }
+
+    /**
+     * Gives the quantities back to the stocks
+     * @param quantities quantities to be released keyed by product id
+     */
+    @Override
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void release(Map<Long, Integer> quantities) {
+        Map<Long, Integer> negatedQuantities = new HashMap<>();
+        for (Map.Entry<Long, Integer> entry : quantities.entrySet()) {
+            negatedQuantities.merge(entry.getKey(), -entry.getValue(), Integer::sum);
+        }
+        reserve(negatedQuantities);
+    }
+
+    private Map<Long, Integer> takeHotQuantities(Map<Long, Integer> quantities) {
+        Map<Long, Integer> hotQuantities = new HashMap<>();
+        Iterator<Map.Entry<Long, Integer>> iterator = quantities.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<Long, Integer> entry = iterator.next();
+            if (hotStockLedger.isHot(entry.getKey())) {
+                hotQuantities.put(entry.getKey(), entry.getValue());
+                iterator.remove();
+            }
+        }
+        return hotQuantities;
+    }
+
+    private RuntimeException findReservationFailure(Map<Long, Integer> quantities, Map<Long, Integer> stocks) {
+        for (Map.Entry<Long, Integer> entry : quantities.entrySet()) {
+            Integer stock = stocks.get(entry.getKey());
+            if (stock == null) {
+                catalogCache.evictProduct(entry.getKey());
+                return new ProductNotFoundException("Product cannot be found for the id: " + entry.getKey());
+            }
+            if (stock < entry.getValue()) {
+                return new QuantityMismatchException("Cannot supply " + entry.getValue() + " product/s for product id: " + entry.getKey() + ". Only " + stock + " available.");
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Locks the rows of the products in the order of product id
+     * @return stocks of the products found, keyed by product id
+     */
+    private Map<Long, Integer> lockStocks(Collection<Long> productIds) {
+        Map<Long, Integer> stocks = new HashMap<>();
+        for (ProductEntity productEntity : productRepository.findAllByIdInForUpdate(productIds)) {
+            stocks.put(productEntity.getId(), productEntity.getQuantity());
+        }
+        return stocks;
+    }
+
+    private void deductLockedStocks(Map<Long, Integer> quantities) {
+        if (quantities.isEmpty()) {
+            return;
+        }
+        // the stocks were checked under the locks, the conditional update only guards against a writer bypassing them
+        if (productRepository.deductQuantities(quantities) != quantities.size()) {
+            throw new QuantityMismatchException("Cannot supply the requested products since the stocks have changed. Please retry.");
+        }
+    }
+}
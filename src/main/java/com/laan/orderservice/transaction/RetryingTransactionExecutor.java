@@ -0,0 +1,92 @@
+package com.laan.orderservice.transaction;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Supplier;
+
+/**
+ * Runs work in a new transaction and runs it again in a fresh transaction when it loses a lock conflict,
+ * such as a deadlock, a lock wait timeout or an optimistic lock failure.
+ *
+ * @author Lalanke Athauda
+ */
+@Component
+public class RetryingTransactionExecutor {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(RetryingTransactionExecutor.class);
+
+    static final String CONFLICTS_METRIC_NAME = "order-service.transaction.conflicts";
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final MeterRegistry meterRegistry;
+
+    private final int maxAttempts;
+
+    private final long backoffMillis;
+
+    @Autowired
+    public RetryingTransactionExecutor(PlatformTransactionManager transactionManager, MeterRegistry meterRegistry,
+                                       @Value("${order-service.transaction.retry.max-attempts:5}") int maxAttempts,
+                                       @Value("${order-service.transaction.retry.backoff-millis:10}") long backoffMillis) {
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.meterRegistry = meterRegistry;
+        this.maxAttempts = maxAttempts;
+        this.backoffMillis = backoffMillis;
+    }
+
+    public <T> T execute(Supplier<T> work) {
+        // a retry inside an ongoing transaction cannot recover it, leave the retry to its owner
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            return work.get();
+        }
+
+        int attempt = 1;
+        while (true) {
+            try {
+                return transactionTemplate.execute(status -> work.get());
+            } catch (ConcurrencyFailureException exception) {
+                if (attempt >= maxAttempts) {
+                    countConflict(exception, "exhausted");
+                    throw exception;
+                }
+                countConflict(exception, "retried");
+                LOGGER.warn("transaction attempt {} lost a lock conflict, retrying. {}", attempt, exception.getMessage());
+                backOff(attempt);
+                attempt++;
+            }
+        }
+    }
+
+    public void execute(Runnable work) {
+        execute(() -> {
+            work.run();
+            return null;
+        });
+    }
+
+    private void countConflict(ConcurrencyFailureException exception, String outcome) {
+        meterRegistry.counter(CONFLICTS_METRIC_NAME, "exception", exception.getClass().getSimpleName(), "outcome", outcome).increment();
+    }
+
+    private void backOff(int attempt) {
+        // exponential backoff with jitter, so that the conflicting transactions do not collide again
+        long maxDelay = backoffMillis << Math.min(attempt - 1, 10);
+        try {
+            Thread.sleep(ThreadLocalRandom.current().nextLong(maxDelay + 1));
+        } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting to retry the transaction", exception);
+        }
+    }
+}
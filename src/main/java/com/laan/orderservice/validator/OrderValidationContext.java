@@ -0,0 +1,39 @@
+package com.laan.orderservice.validator;
+
+import com.laan.orderservice.cache.CatalogProduct;
+import com.laan.orderservice.entity.OrderEntity;
+import com.laan.orderservice.entity.OrderProductEntity;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Data loaded once while validating an order request, to be reused by the service processing the request.
+ * Holds managed entities, so it is valid only within the transaction it was loaded in.
+ * Stock quantities are not part of it, they are checked by the stock reservation on the database.
+ *
+ * @author Lalanke Athauda
+ */
+@Getter
+@AllArgsConstructor
+public class OrderValidationContext {
+
+    /**
+     * existing order, null for a new order
+     */
+    private final OrderEntity orderEntity;
+
+    /**
+     * lines of the existing order grouped by product id, empty for a new order; orders placed before repeated
+     * products were rejected may hold more than one line of a product
+     */
+    private final Map<Long, List<OrderProductEntity>> orderProductEntities;
+
+    /**
+     * catalog details of the requested products keyed by product id
+     */
+    private final Map<Long, CatalogProduct> catalogProducts;
+
+}
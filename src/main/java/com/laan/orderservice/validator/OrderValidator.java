@@ -1,23 +1,30 @@
 package com.laan.orderservice.validator;
 
+import com.laan.orderservice.cache.CatalogCache;
+import com.laan.orderservice.cache.CatalogProduct;
 import com.laan.orderservice.entity.OrderEntity;
 import com.laan.orderservice.entity.OrderProductEntity;
-import com.laan.orderservice.entity.ProductEntity;
-import com.laan.orderservice.entity.UserEntity;
 import com.laan.orderservice.enums.OrderStatus;
 import com.laan.orderservice.exception.*;
+import com.laan.orderservice.projection.OrderLineProjection;
 import com.laan.orderservice.repository.OrderProductRepository;
 import com.laan.orderservice.repository.OrderRepository;
-import com.laan.orderservice.repository.ProductRepository;
-import com.laan.orderservice.repository.UserRepository;
 import com.laan.orderservice.request.OrderRequest;
 import com.laan.orderservice.request.ProductRequest;
+import io.micrometer.core.annotation.Timed;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
 
 /**
  * Utility class to validate order details
@@ -25,32 +32,43 @@ import java.util.Optional;
  * @author Lalanke Athauda
  */
 @Component
+@Timed("order-service.validator")
 public class OrderValidator {
 
-    private final UserRepository userRepository;
-
-    private final ProductRepository productRepository;
+    private final CatalogCache catalogCache;
 
     private final OrderRepository orderRepository;
 
     private final OrderProductRepository orderProductRepository;
 
     @Autowired
-    public OrderValidator(UserRepository userRepository, ProductRepository productRepository, OrderRepository orderRepository,
-                          OrderProductRepository orderProductRepository) {
-        this.userRepository = userRepository;
-        this.productRepository = productRepository;
+    public OrderValidator(CatalogCache catalogCache, OrderRepository orderRepository, OrderProductRepository orderProductRepository) {
+        this.catalogCache = catalogCache;
         this.orderRepository = orderRepository;
         this.orderProductRepository = orderProductRepository;
     }
 
-    public void validateNewOrderRequest(OrderRequest orderRequest) {
+    /**
+     * Validates a new order request against the catalog. Stocks are checked while they are reserved.
+     * @param orderRequest new order request
+     * @return OrderValidationContext with the requested products
+     */
+    public OrderValidationContext validateNewOrderRequest(OrderRequest orderRequest) {
+        return validateNewOrderRequest(orderRequest, findCatalogProducts(orderRequest.getProducts()));
+    }
+
+    /**
+     * Validates a new order request against products already read from the catalog, used for orders placed together
+     * @param orderRequest new order request
+     * @param catalogProducts products of the request, may contain other products as well
+     * @return OrderValidationContext with the catalog products
+     */
+    public OrderValidationContext validateNewOrderRequest(OrderRequest orderRequest, Map<Long, CatalogProduct> catalogProducts) {
         validateUserById(orderRequest.getUserId());
         List<ProductRequest> productRequests = orderRequest.getProducts();
         for (ProductRequest productRequest : productRequests) {
             // check product ids are actually available
-            Optional<ProductEntity> optionalProductEntity = productRepository.findById(productRequest.getId());
-            if (optionalProductEntity.isEmpty()) {
+            if (!catalogProducts.containsKey(productRequest.getId())) {
                 throw new ProductNotFoundException("Product cannot be found for the id: " + productRequest.getId());
             }
 
@@ -58,23 +76,34 @@ public class OrderValidator {
             if (productRequest.getQuantity() < 1) {
                 throw new QuantityMismatchException("Quantity: " + productRequest.getQuantity() + " must be a positive value for product id: " + productRequest.getId());
             }
-
-            // check the stocks for availability
-            ProductEntity productEntity = optionalProductEntity.get();
-            if (productEntity.getQuantity() < productRequest.getQuantity()) {
-                throw new QuantityMismatchException("Cannot supply " + productRequest.getQuantity() + " product/s for product id: " + productRequest.getId() + ". Only " + productEntity.getQuantity() + " available.");
-            }
         }
+        return new OrderValidationContext(null, Collections.emptyMap(), catalogProducts);
     }
 
-    public void validateOrderId(Long id) {
-        if (!orderRepository.existsById(id)) {
+    public void validateOrderLines(Long id, List<OrderLineProjection> orderLineProjections) {
+        if (orderLineProjections.isEmpty()) {
             throw new OrderNotFoundException("Order cannot be found for id: " + id);
         }
     }
 
-    public void validateOrderStatus(Long id, OrderStatus newOrderStatus) {
-        OrderEntity orderEntity = orderRepository.findById(id).get();
+    /**
+     * Validates the order can be turned to the new status
+     * @param id order id
+     * @param newOrderStatus new status
+     * @return OrderValidationContext with the order
+     */
+    public OrderValidationContext validateOrderStatus(Long id, OrderStatus newOrderStatus) {
+        OrderEntity orderEntity = findOrderEntity(id);
+        validateOrderStatus(orderEntity, newOrderStatus);
+        return new OrderValidationContext(orderEntity, Collections.emptyMap(), Collections.emptyMap());
+    }
+
+    /**
+     * Validates an order already loaded can be turned to the new status
+     * @param orderEntity order
+     * @param newOrderStatus new status
+     */
+    public void validateOrderStatus(OrderEntity orderEntity, OrderStatus newOrderStatus) {
         OrderStatus currentStatus = orderEntity.getStatus();
         if (newOrderStatus == OrderStatus.PENDING) {
             throw new InvalidOrderStatusException("Order status cannot be turned to " + OrderStatus.PENDING);
@@ -89,40 +118,51 @@ public class OrderValidator {
         }
     }
 
-    private void validateOrderVersion(Long id, OrderRequest orderRequest) {
-        if (!orderRepository.findById(id).get().getVersion().equals(orderRequest.getVersion())) {
+    private void validateOrderVersion(OrderEntity orderEntity, OrderRequest orderRequest) {
+        if (!orderEntity.getVersion().equals(orderRequest.getVersion())) {
             throw new OrderNotFoundException("Order cannot be found due to version mismatch");
         }
     }
 
-    public void validateOrderIsInDeletableState(Long id) {
-        OrderEntity orderEntity = orderRepository.findById(id).get();
+    /**
+     * Validates the order can be deleted
+     * @param id order id
+     * @return OrderValidationContext with the order and its lines
+     */
+    public OrderValidationContext validateOrderIsInDeletableState(Long id) {
+        OrderEntity orderEntity = findOrderEntity(id);
         if (orderEntity.getStatus() != OrderStatus.PENDING) {
             throw new OrderNotFoundException("Order is not in a deletable state. Only pending orders can be deleted.");
         }
+        return new OrderValidationContext(orderEntity, findOrderProductEntities(orderEntity), Collections.emptyMap());
     }
 
-    public void validateOrderRequest(Long id, OrderRequest orderRequest) {
+    /**
+     * Validates an update of an existing order, loading the order, its lines and the requested products once
+     * @param id order id
+     * @param orderRequest order details to be updated
+     * @return OrderValidationContext with the order, its lines and the requested products
+     */
+    public OrderValidationContext validateOrderRequest(Long id, OrderRequest orderRequest) {
         // validate order id
-        validateOrderId(id);
-        validateOrderVersion(id, orderRequest);
+        OrderEntity orderEntity = findOrderEntity(id);
+        validateOrderVersion(orderEntity, orderRequest);
 
-        // validate user with existing users and make sure the order is changing only by its owning user
-        validateUserById(orderRequest.getUserId());
-        validateOrderUserById(orderRequest.getUserId(), id);
+        // make sure the order is changing only by its owning user, which also proves the user exists
+        validateOrderUserById(orderRequest.getUserId(), orderEntity);
 
         // status must be in pending or processing state to be updated
-        OrderEntity orderEntity = orderRepository.findById(id).get();
         if (orderEntity.getStatus() != OrderStatus.PENDING) {
             throw new InvalidOrderStatusException("Order cannot be updated since it's in " + orderEntity.getStatus() + " state.");
         }
 
-        // checking availability of stocks
+        // checking the requested products, stocks are checked while the differences are reserved
+        Map<Long, List<OrderProductEntity>> orderProductEntities = findOrderProductEntities(orderEntity);
         List<ProductRequest> productRequests = orderRequest.getProducts();
+        Map<Long, CatalogProduct> catalogProducts = findCatalogProducts(productRequests);
         for (ProductRequest productRequest : productRequests) {
             // checks product ids in request, can be found in products
-            Optional<ProductEntity> optionalProductEntity = productRepository.findById(productRequest.getId());
-            if (optionalProductEntity.isEmpty()) {
+            if (!catalogProducts.containsKey(productRequest.getId())) {
                 throw new ProductNotFoundException("Product cannot be found for the id: " + productRequest.getId());
             }
 
@@ -130,43 +170,62 @@ public class OrderValidator {
             if (productRequest.getQuantity() < 0) {
                 throw new QuantityMismatchException("Quantity: " + productRequest.getQuantity() + " must be a positive value for product id: " + productRequest.getId());
             }
+        }
+        return new OrderValidationContext(orderEntity, orderProductEntities, catalogProducts);
+    }
+
+    private OrderEntity findOrderEntity(Long id) {
+        Optional<OrderEntity> optionalOrderEntity = orderRepository.findById(id);
+        if (optionalOrderEntity.isEmpty()) {
+            throw new OrderNotFoundException("Order cannot be found for id: " + id);
+        }
+        return optionalOrderEntity.get();
+    }
+
+    private Map<Long, List<OrderProductEntity>> findOrderProductEntities(OrderEntity orderEntity) {
+        // product id is read from the lazy reference without loading the product
+        Map<Long, List<OrderProductEntity>> orderProductEntities = new HashMap<>();
+        for (OrderProductEntity orderProductEntity : orderProductRepository.findAllByOrderEntity(orderEntity).orElse(Collections.emptyList())) {
+            orderProductEntities.computeIfAbsent(orderProductEntity.getProductEntity().getId(), productId -> new ArrayList<>())
+                    .add(orderProductEntity);
+        }
+        return orderProductEntities;
+    }
 
-            ProductEntity productEntity = optionalProductEntity.get();
-
-            // select order-product table by order id
-            Optional<OrderProductEntity> optionalExistingOrderProductEntity = orderProductRepository.findByOrderEntityAndProductEntity(orderEntity, productEntity);
-            if (optionalExistingOrderProductEntity.isPresent()) { // same product in existing order
-                // needs to check quantities only if quantities different from earlier order
-                OrderProductEntity existingOrderProductEntity = optionalExistingOrderProductEntity.get();
-                Integer difference = productRequest.getQuantity() - existingOrderProductEntity.getQuantity();
-                if (difference > 0) { // new value is greater than earlier one
-                    if (productEntity.getQuantity() - difference < 0) {
-                        throw new QuantityMismatchException("Cannot provide " + difference + " more product/s for id: " + productRequest.getId());
-                    }
-                }
-            } else { // new product for existing order
-                // needs to check quantity is available in the stock
-                if (productEntity.getQuantity() - productRequest.getQuantity() < 0) {
-                    throw new QuantityMismatchException("Cannot supply " + productRequest.getQuantity() + " product/s for product id: " + productRequest.getId());
-                }
+    /**
+     * Reads the products of all the order requests from the catalog at once
+     * @param orderRequests order requests
+     * @return products keyed by id, unknown ids are left out
+     */
+    public Map<Long, CatalogProduct> findCatalogProducts(Collection<OrderRequest> orderRequests) {
+        Set<Long> ids = new HashSet<>();
+        for (OrderRequest orderRequest : orderRequests) {
+            for (ProductRequest productRequest : orderRequest.getProducts()) {
+                ids.add(productRequest.getId());
             }
         }
+        return catalogCache.getProducts(ids);
+    }
+
+    private Map<Long, CatalogProduct> findCatalogProducts(List<ProductRequest> productRequests) {
+        Set<Long> ids = new HashSet<>();
+        for (ProductRequest productRequest : productRequests) {
+            ids.add(productRequest.getId());
+        }
+        return catalogCache.getProducts(ids);
     }
 
     private void validateUserById(Long id) {
-        Optional<UserEntity> optionalUserEntity = userRepository.findById(id);
-        if (optionalUserEntity.isEmpty()) {
+        if (!catalogCache.userExists(id)) {
             throw new UserNotFoundException("User cannot be found for the id: " + id);
         }
     }
 
-    private void validateOrderUserById(Long userId, Long orderId) {
-        Optional<OrderEntity> optionalOrderEntity = orderRepository.findById(orderId);
-        if (optionalOrderEntity.isPresent()) {
-            Long existingUserId = optionalOrderEntity.get().getUserEntity().getId();
-            if (!Objects.equals(userId, existingUserId)) {
-                throw new UserNotFoundException("User id: " + userId + " cannot be found in the existing order with id: " + orderId);
-            }
+    private void validateOrderUserById(Long userId, OrderEntity orderEntity) {
+        // user id is read from the lazy reference without loading the user
+        Long existingUserId = orderEntity.getUserEntity().getId();
+        if (!Objects.equals(userId, existingUserId)) {
+            throw new UserNotFoundException("User id: " + userId + " cannot be found in the existing order with id: " + orderEntity.getId());
         }
     }
 
@@ -2,8 +2,10 @@ package com.laan.orderservice;
 
 import org.junit.jupiter.api.Test;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
 
 @SpringBootTest
+@ActiveProfiles({"embedded", "test"})
 class OrderServiceApplicationTests {
 
 	@Test
@@ -0,0 +1,46 @@
+package com.laan.orderservice;
+
+import com.laan.orderservice.request.OrderRequest;
+import com.laan.orderservice.request.ProductRequest;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Order requests shared by the tests, placed by the seeded user unless a user is given
+ */
+public final class TestOrderRequests {
+
+    public static final long USER_ID = 1L;
+
+    private TestOrderRequests() {
+    }
+
+    public static ProductRequest productRequest(long productId, int quantity) {
+        ProductRequest productRequest = new ProductRequest();
+        productRequest.setId(productId);
+        productRequest.setQuantity(quantity);
+        return productRequest;
+    }
+
+    public static OrderRequest orderRequest(long productId, int quantity) {
+        return orderRequest(USER_ID, productRequest(productId, quantity));
+    }
+
+    public static OrderRequest orderRequest(ProductRequest... productRequests) {
+        return orderRequest(USER_ID, productRequests);
+    }
+
+    /**
+     * Creates an order request with the products in the given order
+     * @param userId user id, may be null
+     * @param productRequests products of the order
+     * @return OrderRequest without a version
+     */
+    public static OrderRequest orderRequest(Long userId, ProductRequest... productRequests) {
+        OrderRequest orderRequest = new OrderRequest();
+        orderRequest.setUserId(userId);
+        orderRequest.setProducts(new ArrayList<>(List.of(productRequests)));
+        return orderRequest;
+    }
+}
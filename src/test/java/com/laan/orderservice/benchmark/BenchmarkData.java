@@ -0,0 +1,165 @@
+package com.laan.orderservice.benchmark;
+
+import com.laan.orderservice.entity.OrderEntity;
+import com.laan.orderservice.entity.OrderProductEntity;
+import com.laan.orderservice.entity.ProductEntity;
+import com.laan.orderservice.entity.UserEntity;
+import com.laan.orderservice.enums.OrderStatus;
+import com.laan.orderservice.enums.ProductType;
+import com.laan.orderservice.projection.OrderLineProjection;
+import com.laan.orderservice.request.OrderRequest;
+import com.laan.orderservice.request.ProductRequest;
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.lang.reflect.Proxy;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Deterministic test data and repository stubs shared by the benchmarks, so that every run measures the same input
+ */
+final class BenchmarkData {
+
+    static final long USER_ID = 1L;
+
+    static final long ORDER_ID = 1000L;
+
+    private static final long FIRST_PRODUCT_ID = 100L;
+
+    private static final ProductType[] PRODUCT_TYPES = ProductType.values();
+
+    private BenchmarkData() {
+    }
+
+    static long productId(int index) {
+        return FIRST_PRODUCT_ID + index;
+    }
+
+    static BigDecimal unitPrice(int index) {
+        // fixed prices with cents, so that the math is not trivially on whole numbers
+        return BigDecimal.valueOf(1999 + index * 250L, 2);
+    }
+
+    static List<ProductEntity> products(int count) {
+        List<ProductEntity> productEntities = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            ProductEntity productEntity = new ProductEntity();
+            productEntity.setId(productId(i));
+            productEntity.setType(PRODUCT_TYPES[i % PRODUCT_TYPES.length]);
+            productEntity.setUnitPrice(unitPrice(i));
+            productEntity.setQuantity(1000);
+            productEntities.add(productEntity);
+        }
+        return productEntities;
+    }
+
+    static OrderEntity order() {
+        UserEntity userEntity = new UserEntity();
+        userEntity.setId(USER_ID);
+
+        OrderEntity orderEntity = new OrderEntity();
+        orderEntity.setId(ORDER_ID);
+        orderEntity.setVersion(0L);
+        orderEntity.setStatus(OrderStatus.PENDING);
+        orderEntity.setTotalPrice(BigDecimal.ZERO);
+        orderEntity.setCreatedTimestamp(new Date(0));
+        orderEntity.setUserEntity(userEntity);
+        return orderEntity;
+    }
+
+    static List<OrderProductEntity> orderLines(OrderEntity orderEntity, int count) {
+        List<OrderProductEntity> orderProductEntities = new ArrayList<>();
+        for (ProductEntity productEntity : products(count)) {
+            int quantity = (int) (productEntity.getId() % 5) + 1;
+            OrderProductEntity orderProductEntity = new OrderProductEntity();
+            orderProductEntity.setId(productEntity.getId());
+            orderProductEntity.setOrderEntity(orderEntity);
+            orderProductEntity.setProductEntity(productEntity);
+            orderProductEntity.setQuantity(quantity);
+            orderProductEntity.setUnitPrice(productEntity.getUnitPrice());
+            orderProductEntity.setPrice(productEntity.getUnitPrice().multiply(BigDecimal.valueOf(quantity)));
+            orderProductEntity.setCreatedTimestamp(new Date(0));
+            orderProductEntities.add(orderProductEntity);
+        }
+        return orderProductEntities;
+    }
+
+    static List<OrderLineProjection> orderLineProjections(int orders, int linesPerOrder) {
+        List<OrderLineProjection> orderLineProjections = new ArrayList<>();
+        for (int order = 0; order < orders; order++) {
+            for (int line = 0; line < linesPerOrder; line++) {
+                orderLineProjections.add(new OrderLineProjection(ORDER_ID + order, 0L, OrderStatus.PENDING,
+                        unitPrice(order), productId(line), line + 1));
+            }
+        }
+        return orderLineProjections;
+    }
+
+    static OrderRequest orderRequest(int count) {
+        List<ProductRequest> productRequests = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            ProductRequest productRequest = new ProductRequest();
+            productRequest.setId(productId(i));
+            productRequest.setQuantity(i % 5 + 1);
+            productRequests.add(productRequest);
+        }
+        OrderRequest orderRequest = new OrderRequest();
+        orderRequest.setUserId(USER_ID);
+        orderRequest.setVersion(0L);
+        orderRequest.setProducts(productRequests);
+        return orderRequest;
+    }
+
+    /**
+     * Creates an in-memory database holding the user and the given products, for the catalog cache to read its misses from
+     * @param name database name
+     * @param productEntities products of the catalog
+     * @return pool of the database
+     */
+    static HikariDataSource catalogDatabase(String name, List<ProductEntity> productEntities) {
+        HikariDataSource dataSource = new HikariDataSource();
+        dataSource.setJdbcUrl("jdbc:h2:mem:" + name + ";MODE=MySQL;DATABASE_TO_LOWER=TRUE");
+        dataSource.setMaximumPoolSize(1);
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute("create table `user` (id bigint primary key)");
+        jdbcTemplate.execute("create table product (id bigint primary key, type varchar(20), unit_price decimal(12, 2))");
+        jdbcTemplate.update("insert into `user` (id) values (?)", USER_ID);
+        for (ProductEntity productEntity : productEntities) {
+            jdbcTemplate.update("insert into product (id, type, unit_price) values (?, ?, ?)",
+                    productEntity.getId(), productEntity.getType().name(), productEntity.getUnitPrice());
+        }
+        return dataSource;
+    }
+
+    /**
+     * Creates a repository stub answering only the given methods by name, any other call fails
+     * @param type repository interface
+     * @param answers answers keyed by method name, receiving the call arguments
+     * @return stub of the repository
+     */
+    static <T> T stub(Class<T> type, Map<String, Function<Object[], Object>> answers) {
+        Object stub = Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, (proxy, method, args) -> {
+            Function<Object[], Object> answer = answers.get(method.getName());
+            if (answer != null) {
+                return answer.apply(args);
+            }
+            if (method.getDeclaringClass() == Object.class) {
+                switch (method.getName()) {
+                    case "hashCode":
+                        return System.identityHashCode(proxy);
+                    case "equals":
+                        return proxy == args[0];
+                    default:
+                        return type.getSimpleName() + " stub";
+                }
+            }
+            throw new UnsupportedOperationException(method.getName() + " is not stubbed");
+        });
+        return type.cast(stub);
+    }
+}
@@ -0,0 +1,88 @@
+package com.laan.orderservice.benchmark;
+
+import com.laan.orderservice.OrderServiceApplication;
+import com.laan.orderservice.service.StockReservationService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares reservations per second of a single product from concurrent threads, when the product is reserved
+ * on its row against when it is a hot product reserved in memory, on the embedded database.
+ * The rest of the order transaction is stood in for by a pause, the time the statements of an order take on MySql
+ * while the row of a product reserved on its row stays locked.
+ * @author Lalanke Athauda
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = {"-Xms1g", "-Xmx1g"})
+@Threads(16)
+public class HotStockReservationBenchmark {
+
+    private static final long COLD_PRODUCT_ID = 930_001L;
+
+    private static final long HOT_PRODUCT_ID = 930_002L;
+
+    @Param({"0", "1"})
+    public int orderMillis;
+
+    private ConfigurableApplicationContext context;
+
+    private StockReservationService stockReservationService;
+
+    private TransactionTemplate transactionTemplate;
+
+    @Setup
+    public void setUp() {
+        context = new SpringApplicationBuilder(OrderServiceApplication.class)
+                .web(WebApplicationType.NONE)
+                .profiles("embedded", "load-test")
+                .run("--order-service.inventory.hot-product-ids=" + HOT_PRODUCT_ID);
+        stockReservationService = context.getBean(StockReservationService.class);
+        transactionTemplate = context.getBean(TransactionTemplate.class);
+
+        JdbcTemplate jdbcTemplate = context.getBean(JdbcTemplate.class);
+        for (long productId : new long[]{COLD_PRODUCT_ID, HOT_PRODUCT_ID}) {
+            jdbcTemplate.update("insert into product (id, type, unit_price, quantity) values (?, 'SHIRT', 1000.00, ?)",
+                    productId, Integer.MAX_VALUE);
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public void reserveColdProduct() {
+        reserve(COLD_PRODUCT_ID);
+    }
+
+    @Benchmark
+    public void reserveHotProduct() {
+        reserve(HOT_PRODUCT_ID);
+    }
+
+    private void reserve(long productId) {
+        transactionTemplate.executeWithoutResult(status -> {
+            stockReservationService.reserve(Map.of(productId, 1));
+            if (orderMillis > 0) {
+                try {
+                    Thread.sleep(orderMillis);
+                } catch (InterruptedException exception) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        });
+    }
+
+}
@@ -0,0 +1,62 @@
+package com.laan.orderservice.benchmark;
+
+import com.laan.orderservice.filter.MdcFilter;
+import com.laan.orderservice.filter.RequestIdGenerator;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import java.io.IOException;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the overhead the MDC filter adds to every request, against calling the filter chain directly,
+ * and the request id generation against the former UUID based id
+ * @author Lalanke Athauda
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgs = {"-Xms1g", "-Xmx1g"})
+public class MdcFilterBenchmark {
+
+    private final MdcFilter mdcFilter = new MdcFilter();
+
+    private final FilterChain filterChain = (request, response) -> { };
+
+    private MockHttpServletRequest request;
+
+    private MockHttpServletResponse response;
+
+    @Setup
+    public void setUp() {
+        request = new MockHttpServletRequest("GET", "/order-service/orders/1");
+        response = new MockHttpServletResponse();
+    }
+
+    @Benchmark
+    public void filterChainOnly() throws ServletException, IOException {
+        filterChain.doFilter(request, response);
+    }
+
+    @Benchmark
+    public void mdcFilter() throws ServletException, IOException {
+        mdcFilter.doFilter(request, response, filterChain);
+    }
+
+    @Benchmark
+    public String uuidRequestId() {
+        return UUID.randomUUID().toString().replace("-", "");
+    }
+
+    @Benchmark
+    public String generatedRequestId() {
+        return RequestIdGenerator.next();
+    }
+
+}
@@ -0,0 +1,95 @@
+package com.laan.orderservice.benchmark;
+
+import com.laan.orderservice.OrderServiceApplication;
+import com.laan.orderservice.request.BatchOrderRequest;
+import com.laan.orderservice.request.OrderRequest;
+import com.laan.orderservice.request.ProductRequest;
+import com.laan.orderservice.service.OrderService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares orders per second placed one by one against the same orders placed through the batch path
+ * on the embedded database
+ * @author Lalanke Athauda
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = {"-Xms1g", "-Xmx1g"})
+@OperationsPerInvocation(OrderBatchBenchmark.ORDERS)
+public class OrderBatchBenchmark {
+
+    static final int ORDERS = 50;
+
+    private static final int LINES = 3;
+
+    private static final long FIRST_PRODUCT_ID = 910_001L;
+
+    private ConfigurableApplicationContext context;
+
+    private OrderService orderService;
+
+    private OrderRequest orderRequest;
+
+    private BatchOrderRequest batchOrderRequest;
+
+    @Setup
+    public void setUp() {
+        context = new SpringApplicationBuilder(OrderServiceApplication.class)
+                .web(WebApplicationType.NONE)
+                .profiles("embedded", "load-test")
+                .run();
+        orderService = context.getBean(OrderService.class);
+
+        JdbcTemplate jdbcTemplate = context.getBean(JdbcTemplate.class);
+        List<ProductRequest> productRequests = new ArrayList<>();
+        for (int i = 0; i < LINES; i++) {
+            long productId = FIRST_PRODUCT_ID + i;
+            jdbcTemplate.update("insert into product (id, type, unit_price, quantity) values (?, 'SHIRT', 1000.00, ?)",
+                    productId, Integer.MAX_VALUE);
+            ProductRequest productRequest = new ProductRequest();
+            productRequest.setId(productId);
+            productRequest.setQuantity(1);
+            productRequests.add(productRequest);
+        }
+        orderRequest = new OrderRequest();
+        orderRequest.setUserId(1L);
+        orderRequest.setProducts(productRequests);
+
+        batchOrderRequest = new BatchOrderRequest();
+        batchOrderRequest.setOrders(Collections.nCopies(ORDERS, orderRequest));
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public int addOrdersOneByOne() {
+        int created = 0;
+        for (int i = 0; i < ORDERS; i++) {
+            if (orderService.addOrder(orderRequest) != null) {
+                created++;
+            }
+        }
+        return created;
+    }
+
+    @Benchmark
+    public Object addOrdersInBatch() {
+        return orderService.addOrders(batchOrderRequest);
+    }
+
+}
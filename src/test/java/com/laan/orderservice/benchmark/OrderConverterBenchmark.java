@@ -0,0 +1,64 @@
+package com.laan.orderservice.benchmark;
+
+import com.laan.orderservice.converter.OrderConverter;
+import com.laan.orderservice.entity.OrderEntity;
+import com.laan.orderservice.entity.OrderProductEntity;
+import com.laan.orderservice.projection.OrderLineProjection;
+import com.laan.orderservice.request.ProductRequest;
+import com.laan.orderservice.response.OrderResponse;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the conversions between entities, projections, requests and responses for growing baskets
+ * @author Lalanke Athauda
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgs = {"-Xms1g", "-Xmx1g"})
+public class OrderConverterBenchmark {
+
+    @Param({"1", "10", "100"})
+    private int lines;
+
+    private final OrderConverter orderConverter = new OrderConverter();
+
+    private OrderEntity orderEntity;
+
+    private List<OrderProductEntity> orderProductEntities;
+
+    private List<OrderLineProjection> orderLineProjections;
+
+    private List<ProductRequest> productRequests;
+
+    @Setup
+    public void setUp() {
+        orderEntity = BenchmarkData.order();
+        orderProductEntities = BenchmarkData.orderLines(orderEntity, lines);
+        // a page of 20 orders
+        orderLineProjections = BenchmarkData.orderLineProjections(20, lines);
+        productRequests = BenchmarkData.orderRequest(lines).getProducts();
+    }
+
+    @Benchmark
+    public OrderResponse convertEntityToResponse() {
+        return orderConverter.convertEntityToResponse(orderEntity, orderProductEntities);
+    }
+
+    @Benchmark
+    public List<OrderResponse> convertProjectionsToResponses() {
+        return orderConverter.convertProjectionsToResponses(orderLineProjections);
+    }
+
+    @Benchmark
+    public Map<Long, Integer> convertRequestsToQuantities() {
+        return orderConverter.convertRequestsToQuantities(productRequests);
+    }
+
+}
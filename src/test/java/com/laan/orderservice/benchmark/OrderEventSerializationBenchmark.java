@@ -0,0 +1,109 @@
+package com.laan.orderservice.benchmark;
+
+import com.laan.orderservice.entity.OrderEntity;
+import com.laan.orderservice.enums.OrderStatus;
+import com.laan.orderservice.event.OrderStatusChangedEvent;
+import com.laan.orderservice.event.OrderStatusChangedEventSerializer;
+import org.apache.activemq.command.ActiveMQObjectMessage;
+import org.apache.activemq.util.ByteSequence;
+import org.openjdk.jmh.annotations.*;
+
+import javax.jms.JMSException;
+import java.math.BigDecimal;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the Java-serialized OrderEntity sent as an ObjectMessage against the versioned
+ * OrderStatusChangedEvent, on encoded size and encode/decode throughput. The encoded sizes are reported as
+ * auxiliary counters of the encoding benchmarks.
+ * The entity is encoded without its user, so its numbers are a lower bound of the old path.
+ * @author Lalanke Athauda
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgs = {"-Xms1g", "-Xmx1g"})
+public class OrderEventSerializationBenchmark {
+
+    private OrderStatusChangedEventSerializer serializer;
+
+    private OrderEntity orderEntity;
+
+    private OrderStatusChangedEvent event;
+
+    private ByteSequence objectMessageContent;
+
+    private String eventPayload;
+
+    @Setup
+    public void setUp() throws JMSException {
+        serializer = new OrderStatusChangedEventSerializer();
+
+        orderEntity = new OrderEntity();
+        orderEntity.setId(123456L);
+        orderEntity.setTotalPrice(new BigDecimal("1249.50"));
+        orderEntity.setStatus(OrderStatus.PROCESSING);
+        orderEntity.setCreatedTimestamp(new Date());
+        orderEntity.setVersion(3L);
+
+        event = new OrderStatusChangedEvent();
+        event.setOrderId(orderEntity.getId());
+        event.setUserId(42L);
+        event.setStatus(orderEntity.getStatus());
+        event.setTotalPrice(orderEntity.getTotalPrice());
+        event.setVersion(orderEntity.getVersion());
+        event.setOccurredAt(System.currentTimeMillis());
+
+        objectMessageContent = createObjectMessage().getContent();
+        eventPayload = serializer.serialize(event);
+    }
+
+    @Benchmark
+    public ActiveMQObjectMessage encodeObjectMessage(EncodedSize encodedSize) throws JMSException {
+        ActiveMQObjectMessage message = createObjectMessage();
+        encodedSize.bytes = message.getContent().getLength();
+        return message;
+    }
+
+    @Benchmark
+    public Object decodeObjectMessage() throws JMSException {
+        ActiveMQObjectMessage message = new ActiveMQObjectMessage();
+        message.setTrustAllPackages(true);
+        message.setContent(objectMessageContent);
+        return message.getObject();
+    }
+
+    @Benchmark
+    public String encodeEvent(EncodedSize encodedSize) {
+        String payload = serializer.serialize(event);
+        // the payload is ASCII, its length is its size in bytes
+        encodedSize.bytes = payload.length();
+        return payload;
+    }
+
+    @Benchmark
+    public OrderStatusChangedEvent decodeEvent() {
+        return serializer.deserialize(eventPayload);
+    }
+
+    private ActiveMQObjectMessage createObjectMessage() throws JMSException {
+        ActiveMQObjectMessage message = new ActiveMQObjectMessage();
+        message.setObject(orderEntity);
+        message.storeContent();
+        return message;
+    }
+
+    /**
+     * Size in bytes of the last message encoded, JMH reports the value an iteration ends with
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class EncodedSize {
+
+        public long bytes;
+    }
+
+}
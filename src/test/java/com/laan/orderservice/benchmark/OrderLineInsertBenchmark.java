@@ -0,0 +1,75 @@
+package com.laan.orderservice.benchmark;
+
+import com.laan.orderservice.OrderServiceApplication;
+import com.laan.orderservice.request.OrderRequest;
+import com.laan.orderservice.request.ProductRequest;
+import com.laan.orderservice.service.OrderService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures how many order lines per second are placed through the order service on the embedded database,
+ * which shows the cost of id generation and insert batching per line
+ * @author Lalanke Athauda
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = {"-Xms1g", "-Xmx1g"})
+@OperationsPerInvocation(OrderLineInsertBenchmark.LINES)
+public class OrderLineInsertBenchmark {
+
+    static final int LINES = 20;
+
+    private static final long FIRST_PRODUCT_ID = 900_001L;
+
+    private ConfigurableApplicationContext context;
+
+    private OrderService orderService;
+
+    private OrderRequest orderRequest;
+
+    @Setup
+    public void setUp() {
+        context = new SpringApplicationBuilder(OrderServiceApplication.class)
+                .web(WebApplicationType.NONE)
+                .profiles("embedded", "load-test")
+                .run();
+        orderService = context.getBean(OrderService.class);
+
+        JdbcTemplate jdbcTemplate = context.getBean(JdbcTemplate.class);
+        List<ProductRequest> productRequests = new ArrayList<>();
+        for (int i = 0; i < LINES; i++) {
+            long productId = FIRST_PRODUCT_ID + i;
+            jdbcTemplate.update("insert into product (id, type, unit_price, quantity) values (?, 'SHIRT', 1000.00, ?)",
+                    productId, Integer.MAX_VALUE);
+            ProductRequest productRequest = new ProductRequest();
+            productRequest.setId(productId);
+            productRequest.setQuantity(1);
+            productRequests.add(productRequest);
+        }
+        orderRequest = new OrderRequest();
+        orderRequest.setUserId(1L);
+        orderRequest.setProducts(productRequests);
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public Object addOrder() {
+        return orderService.addOrder(orderRequest);
+    }
+
+}
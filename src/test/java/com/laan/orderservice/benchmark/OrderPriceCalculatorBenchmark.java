@@ -0,0 +1,48 @@
+package com.laan.orderservice.benchmark;
+
+import com.laan.orderservice.calculator.OrderPriceCalculator;
+import com.laan.orderservice.entity.OrderProductEntity;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the BigDecimal math of line and order prices
+ * @author Lalanke Athauda
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgs = {"-Xms1g", "-Xmx1g"})
+public class OrderPriceCalculatorBenchmark {
+
+    @Param({"1", "10", "100"})
+    private int lines;
+
+    private final OrderPriceCalculator orderPriceCalculator = new OrderPriceCalculator();
+
+    private List<OrderProductEntity> orderProductEntities;
+
+    @Setup
+    public void setUp() {
+        orderProductEntities = BenchmarkData.orderLines(BenchmarkData.order(), lines);
+    }
+
+    @Benchmark
+    public void calculateOrderProductPrices(Blackhole blackhole) {
+        for (OrderProductEntity orderProductEntity : orderProductEntities) {
+            blackhole.consume(orderPriceCalculator.calculateOrderProductPrice(orderProductEntity.getUnitPrice(), orderProductEntity.getQuantity()));
+        }
+    }
+
+    @Benchmark
+    public BigDecimal calculateOrderTotalPrice() {
+        return orderPriceCalculator.calculateOrderTotalPrice(orderProductEntities);
+    }
+
+}
@@ -0,0 +1,54 @@
+package com.laan.orderservice.benchmark;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.laan.orderservice.converter.OrderConverter;
+import com.laan.orderservice.entity.OrderEntity;
+import com.laan.orderservice.response.OrderResponse;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the JSON serialization of order responses with an object mapper configured as the web layer configures it
+ * @author Lalanke Athauda
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgs = {"-Xms1g", "-Xmx1g"})
+public class OrderResponseSerializationBenchmark {
+
+    @Param({"1", "10", "100"})
+    private int lines;
+
+    private ObjectMapper objectMapper;
+
+    private ObjectWriter orderResponseWriter;
+
+    private OrderResponse orderResponse;
+
+    @Setup
+    public void setUp() {
+        objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        orderResponseWriter = objectMapper.writerFor(OrderResponse.class);
+
+        OrderEntity orderEntity = BenchmarkData.order();
+        orderResponse = new OrderConverter().convertEntityToResponse(orderEntity, BenchmarkData.orderLines(orderEntity, lines));
+    }
+
+    @Benchmark
+    public byte[] writeWithObjectMapper() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(orderResponse);
+    }
+
+    @Benchmark
+    public byte[] writeWithObjectWriter() throws JsonProcessingException {
+        return orderResponseWriter.writeValueAsBytes(orderResponse);
+    }
+
+}
@@ -0,0 +1,84 @@
+package com.laan.orderservice.benchmark;
+
+import com.laan.orderservice.cache.CatalogCache;
+import com.laan.orderservice.entity.OrderEntity;
+import com.laan.orderservice.entity.OrderProductEntity;
+import com.laan.orderservice.entity.ProductEntity;
+import com.laan.orderservice.enums.OrderStatus;
+import com.laan.orderservice.repository.OrderProductRepository;
+import com.laan.orderservice.repository.OrderRepository;
+import com.laan.orderservice.request.OrderRequest;
+import com.laan.orderservice.validator.OrderValidationContext;
+import com.laan.orderservice.validator.OrderValidator;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the order validations on a warm catalog cache, with repositories stubbed to answer from memory
+ * and the catalog in an in-memory database, so that only the validation logic is measured
+ * @author Lalanke Athauda
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgs = {"-Xms1g", "-Xmx1g"})
+public class OrderValidatorBenchmark {
+
+    @Param({"1", "10", "100"})
+    private int lines;
+
+    private CatalogCache catalogCache;
+
+    private OrderValidator orderValidator;
+
+    private OrderRequest orderRequest;
+
+    @Setup
+    public void setUp() {
+        List<ProductEntity> productEntities = BenchmarkData.products(lines);
+        OrderEntity orderEntity = BenchmarkData.order();
+        List<OrderProductEntity> orderProductEntities = BenchmarkData.orderLines(orderEntity, lines);
+
+        OrderRepository orderRepository = BenchmarkData.stub(OrderRepository.class,
+                Map.of("findById", args -> Optional.of(orderEntity)));
+        OrderProductRepository orderProductRepository = BenchmarkData.stub(OrderProductRepository.class,
+                Map.of("findAllByOrderEntity", args -> Optional.of(orderProductEntities)));
+
+        catalogCache = new CatalogCache(BenchmarkData.catalogDatabase("order-validator-benchmark", productEntities),
+                new SimpleMeterRegistry(), 10_000, Duration.ofHours(1));
+        orderValidator = new OrderValidator(catalogCache, orderRepository, orderProductRepository);
+        orderRequest = BenchmarkData.orderRequest(lines);
+
+        // warm the catalog cache, as it is on a running service
+        orderValidator.validateNewOrderRequest(orderRequest);
+    }
+
+    @TearDown
+    public void tearDown() {
+        catalogCache.close();
+    }
+
+    @Benchmark
+    public OrderValidationContext validateNewOrderRequest() {
+        return orderValidator.validateNewOrderRequest(orderRequest);
+    }
+
+    @Benchmark
+    public OrderValidationContext validateOrderRequest() {
+        return orderValidator.validateOrderRequest(BenchmarkData.ORDER_ID, orderRequest);
+    }
+
+    @Benchmark
+    public OrderValidationContext validateOrderStatus() {
+        return orderValidator.validateOrderStatus(BenchmarkData.ORDER_ID, OrderStatus.PROCESSING);
+    }
+
+}
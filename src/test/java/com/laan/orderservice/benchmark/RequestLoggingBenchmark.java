@@ -0,0 +1,113 @@
+package com.laan.orderservice.benchmark;
+
+import ch.qos.logback.classic.AsyncAppender;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.encoder.PatternLayoutEncoder;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.Appender;
+import ch.qos.logback.core.OutputStreamAppender;
+import ch.qos.logback.core.encoder.Encoder;
+import com.laan.orderservice.logging.RequestLogSampler;
+import net.logstash.logback.encoder.LogstashEncoder;
+import org.openjdk.jmh.annotations.*;
+import org.slf4j.MDC;
+
+import java.io.OutputStream;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the logging cost of one request on the request thread: the six INFO logs of placing an order,
+ * written by the former synchronous appender with caller data, by the asynchronous JSON appender, and by the
+ * asynchronous JSON appender keeping one request in ten. Logs are written to a discarding stream, so disk time
+ * is left out and the synchronous numbers are a lower bound.
+ * @author Lalanke Athauda
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgs = {"-Xms1g", "-Xmx1g"})
+public class RequestLoggingBenchmark {
+
+    private static final String FORMER_PATTERN = "%date %5level [%thread] %X{mdcId} | %-28.46logger | %method:%line | %msg%n";
+
+    private static final int REQUEST_IDS = 1024;
+
+    @Param({"sync-caller-data", "async-json", "async-json-sampled"})
+    public String pipeline;
+
+    private LoggerContext loggerContext;
+
+    private Logger logger;
+
+    private final String[] requestIds = new String[REQUEST_IDS];
+
+    private int nextRequestId;
+
+    @Setup
+    public void setUp() {
+        loggerContext = new LoggerContext();
+        for (int i = 0; i < REQUEST_IDS; i++) {
+            requestIds[i] = UUID.randomUUID().toString().replace("-", "");
+        }
+
+        Appender<ILoggingEvent> appender;
+        if ("sync-caller-data".equals(pipeline)) {
+            PatternLayoutEncoder encoder = new PatternLayoutEncoder();
+            encoder.setPattern(FORMER_PATTERN);
+            appender = createDiscardingAppender(encoder);
+        } else {
+            AsyncAppender asyncAppender = new AsyncAppender();
+            asyncAppender.setContext(loggerContext);
+            asyncAppender.setQueueSize(8192);
+            asyncAppender.setNeverBlock(true);
+            asyncAppender.addAppender(createDiscardingAppender(new LogstashEncoder()));
+            asyncAppender.start();
+            appender = asyncAppender;
+        }
+        if ("async-json-sampled".equals(pipeline)) {
+            RequestLogSampler requestLogSampler = new RequestLogSampler();
+            requestLogSampler.setSampleEvery(10);
+            requestLogSampler.start();
+            loggerContext.addTurboFilter(requestLogSampler);
+        }
+
+        logger = loggerContext.getLogger("com.laan.orderservice.service.impl.OrderServiceImpl");
+        logger.addAppender(appender);
+    }
+
+    @TearDown
+    public void tearDown() {
+        loggerContext.stop();
+    }
+
+    @Benchmark
+    public void logRequest() {
+        MDC.put("mdcId", requestIds[nextRequestId++ & (REQUEST_IDS - 1)]);
+        try {
+            logger.info("adding new order of user: {} with {} products and idempotency key: {}", 42L, 3, null);
+            logger.info("validates new order");
+            logger.info("reserves stock of {} products", 3);
+            logger.info("saves new order");
+            logger.info("adding status updated order details to outbox");
+            logger.info("sent add new order response");
+        } finally {
+            MDC.remove("mdcId");
+        }
+    }
+
+    private Appender<ILoggingEvent> createDiscardingAppender(Encoder<ILoggingEvent> encoder) {
+        encoder.setContext(loggerContext);
+        encoder.start();
+        OutputStreamAppender<ILoggingEvent> appender = new OutputStreamAppender<>();
+        appender.setContext(loggerContext);
+        appender.setEncoder(encoder);
+        appender.setOutputStream(OutputStream.nullOutputStream());
+        appender.start();
+        return appender;
+    }
+
+}
@@ -0,0 +1,54 @@
+package com.laan.orderservice.benchmark;
+
+import com.laan.orderservice.OrderServiceApplication;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the time from a cold start to the first served page of orders on the embedded database, with the schema
+ * updated by hibernate and the repositories created eagerly against the schema left to liquibase and the repositories
+ * created in the background
+ * @author Lalanke Athauda
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 0)
+@Measurement(iterations = 1)
+@Fork(value = 5, jvmArgs = {"-Xms1g", "-Xmx1g"})
+public class StartupBenchmark {
+
+    @Param({"update-default", "none-deferred"})
+    private String schemaAndBootstrap;
+
+    private ConfigurableApplicationContext context;
+
+    @Benchmark
+    public int startAndGetOrders() throws Exception {
+        String[] settings = schemaAndBootstrap.split("-");
+        context = new SpringApplicationBuilder(OrderServiceApplication.class)
+                .profiles("embedded", "load-test")
+                .run("--server.port=0",
+                        "--spring.jpa.hibernate.ddl-auto=" + settings[0],
+                        "--spring.data.jpa.repositories.bootstrap-mode=" + settings[1]);
+        int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+
+        HttpResponse<String> response = HttpClient.newHttpClient().send(
+                HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/order-service/orders")).GET().build(),
+                HttpResponse.BodyHandlers.ofString());
+        return response.statusCode();
+    }
+
+    @TearDown(Level.Iteration)
+    public void tearDown() {
+        context.close();
+    }
+}
@@ -0,0 +1,127 @@
+package com.laan.orderservice.cache;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@ActiveProfiles({"embedded", "test"})
+class CatalogCacheTests {
+
+    private static final long PRODUCT_ID = 3001;
+
+    @Autowired
+    private CatalogCache catalogCache;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private HikariDataSource primaryDataSource;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate.update("delete from product where id = ?", PRODUCT_ID);
+        jdbcTemplate.update("insert into product (id, type, unit_price, quantity) values (?, 'SKIRT', 1200.00, 5)", PRODUCT_ID);
+        catalogCache.evictAll();
+    }
+
+    @Test
+    void getProductsReadsDatabaseOnlyOnMiss() {
+        Map<Long, CatalogProduct> catalogProducts = catalogCache.getProducts(List.of(PRODUCT_ID, -1L));
+        jdbcTemplate.update("update product set unit_price = 1500.00 where id = ?", PRODUCT_ID);
+
+        assertEquals(0, catalogProducts.get(PRODUCT_ID).getUnitPrice().compareTo(new BigDecimal("1200")));
+        assertFalse(catalogProducts.containsKey(-1L));
+        assertEquals(0, catalogCache.getProducts(List.of(PRODUCT_ID)).get(PRODUCT_ID).getUnitPrice().compareTo(new BigDecimal("1200")));
+    }
+
+    @Test
+    void evictProductReadsChangedPrice() {
+        catalogCache.getProducts(List.of(PRODUCT_ID));
+        jdbcTemplate.update("update product set unit_price = 1500.00 where id = ?", PRODUCT_ID);
+
+        catalogCache.evictProduct(PRODUCT_ID);
+
+        assertEquals(0, catalogCache.getProducts(List.of(PRODUCT_ID)).get(PRODUCT_ID).getUnitPrice().compareTo(new BigDecimal("1500")));
+    }
+
+    @Test
+    void lookupInAnOlderSnapshotDoesNotCacheTheOldPrice() {
+        TransactionTemplate repeatableReadTransaction = new TransactionTemplate(transactionTemplate.getTransactionManager());
+        repeatableReadTransaction.setIsolationLevel(TransactionDefinition.ISOLATION_REPEATABLE_READ);
+        repeatableReadTransaction.executeWithoutResult(status -> {
+            // the snapshot of the transaction starts with the old price
+            assertEquals(0, jdbcTemplate.queryForObject("select unit_price from product where id = ?", BigDecimal.class, PRODUCT_ID).compareTo(new BigDecimal("1200")));
+            CompletableFuture.runAsync(() -> {
+                jdbcTemplate.update("update product set unit_price = 1500.00 where id = ?", PRODUCT_ID);
+                catalogCache.evictProduct(PRODUCT_ID);
+            }).join();
+
+            assertEquals(0, catalogCache.getProducts(List.of(PRODUCT_ID)).get(PRODUCT_ID).getUnitPrice().compareTo(new BigDecimal("1500")));
+        });
+
+        assertEquals(0, catalogCache.getProducts(List.of(PRODUCT_ID)).get(PRODUCT_ID).getUnitPrice().compareTo(new BigDecimal("1500")));
+    }
+
+    @Test
+    void missIsReadWhileTheCallerHoldsTheLastConnectionOfThePool() {
+        List<Connection> heldConnections = new ArrayList<>();
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                // the transaction takes its connection on the first statement, every other connection is held here
+                jdbcTemplate.queryForObject("select count(*) from product", Integer.class);
+                while (heldConnections.size() < primaryDataSource.getMaximumPoolSize() - 1) {
+                    heldConnections.add(getConnection());
+                }
+
+                assertTrue(catalogCache.getProducts(List.of(PRODUCT_ID)).containsKey(PRODUCT_ID));
+            });
+        } finally {
+            for (Connection connection : heldConnections) {
+                close(connection);
+            }
+        }
+    }
+
+    @Test
+    void userExistsCachesOnlyExistingUsers() {
+        assertTrue(catalogCache.userExists(1L));
+        assertFalse(catalogCache.userExists(-1L));
+    }
+
+    private Connection getConnection() {
+        try {
+            return primaryDataSource.getConnection();
+        } catch (SQLException exception) {
+            throw new IllegalStateException(exception);
+        }
+    }
+
+    private void close(Connection connection) {
+        try {
+            connection.close();
+        } catch (SQLException exception) {
+            throw new IllegalStateException(exception);
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package com.laan.orderservice.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// a database and broker of their own: the MockMvc context is not shared with the service tests
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:order-controller;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE",
+        "spring.activemq.broker-url=vm://order-controller?broker.persistent=false"})
+@ActiveProfiles({"embedded", "test"})
+@AutoConfigureMockMvc
+class OrderControllerTests {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Test
+    void getOrderAnswersNotModifiedUntilTheOrderChanges() throws Exception {
+        String response = mockMvc.perform(post("/orders").contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"userId\": 1, \"products\": [{\"id\": 1, \"quantity\": 1}]}"))
+                .andExpect(status().isCreated())
+                .andReturn().getResponse().getContentAsString();
+        long orderId = objectMapper.readTree(response).get("id").asLong();
+
+        MvcResult result = mockMvc.perform(get("/orders/" + orderId)).andExpect(status().isOk()).andReturn();
+        String eTag = result.getResponse().getHeader(HttpHeaders.ETAG);
+
+        mockMvc.perform(get("/orders/" + orderId).header(HttpHeaders.IF_NONE_MATCH, eTag))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string(HttpHeaders.ETAG, eTag))
+                .andExpect(content().string(""));
+
+        mockMvc.perform(put("/orders/" + orderId + "/status/PROCESSING")).andExpect(status().isOk());
+        String changedETag = mockMvc.perform(get("/orders/" + orderId).header(HttpHeaders.IF_NONE_MATCH, eTag))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        assertNotEquals(eTag, changedETag);
+        assertEquals("PROCESSING", objectMapper.readTree(mockMvc.perform(get("/orders/" + orderId))
+                .andReturn().getResponse().getContentAsString()).get("status").asText());
+    }
+
+    @Test
+    void getOrdersKeepsTheDefaultLimitForAnEmptyLimit() throws Exception {
+        mockMvc.perform(post("/orders").contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"userId\": 1, \"products\": [{\"id\": 1, \"quantity\": 1}]}"))
+                .andExpect(status().isCreated());
+
+        String response = mockMvc.perform(get("/orders").param("limit", ""))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        assertNotEquals(0, objectMapper.readTree(response).get("orders").size());
+    }
+}
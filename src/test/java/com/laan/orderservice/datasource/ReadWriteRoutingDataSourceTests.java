@@ -0,0 +1,107 @@
+package com.laan.orderservice.datasource;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import liquibase.integration.spring.SpringLiquibase;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.core.io.DefaultResourceLoader;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import javax.servlet.http.Cookie;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.cookie;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// a primary and a replica of their own: the replica gets the schema and the seed data but never the orders,
+// as a replica which has not caught up yet
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:routing-primary;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE",
+        "spring.activemq.broker-url=vm://routing?broker.persistent=false",
+        "order-service.datasource.replica-urls=" + ReadWriteRoutingDataSourceTests.REPLICA_URL,
+        "order-service.datasource.read-your-writes-window=5s"})
+@ActiveProfiles({"embedded", "test"})
+@AutoConfigureMockMvc
+class ReadWriteRoutingDataSourceTests {
+
+    static final String REPLICA_URL = "jdbc:h2:mem:routing-replica;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE";
+
+    private static final String COOKIE_NAME = "order-service-primary-reads";
+
+    private static JdbcTemplate replicaJdbcTemplate;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @BeforeAll
+    static void createReplicaSchema() throws Exception {
+        DriverManagerDataSource replicaDataSource = new DriverManagerDataSource(REPLICA_URL, "sa", "");
+        SpringLiquibase liquibase = new SpringLiquibase();
+        liquibase.setDataSource(replicaDataSource);
+        liquibase.setChangeLog("classpath:db/changelog/db.changelog-master.yaml");
+        liquibase.setResourceLoader(new DefaultResourceLoader());
+        liquibase.afterPropertiesSet();
+        replicaJdbcTemplate = new JdbcTemplate(replicaDataSource);
+    }
+
+    @Test
+    void readsGoToTheReplicaUnlessTheClientWroteRecently() throws Exception {
+        MvcResult created = mockMvc.perform(post("/orders").contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"userId\": 1, \"products\": [{\"id\": 1, \"quantity\": 1}]}"))
+                .andExpect(status().isCreated())
+                .andExpect(cookie().maxAge(COOKIE_NAME, 5))
+                .andReturn();
+        long orderId = objectMapper.readTree(created.getResponse().getContentAsString()).get("id").asLong();
+        Cookie primaryReads = created.getResponse().getCookie(COOKIE_NAME);
+        assertNotNull(primaryReads);
+
+        String countSql = "select count(*) from `order` where id = ?";
+        assertEquals(1, jdbcTemplate.queryForObject(countSql, Integer.class, orderId));
+        assertEquals(0, replicaJdbcTemplate.queryForObject(countSql, Integer.class, orderId));
+
+        mockMvc.perform(get("/orders/" + orderId)).andExpect(status().isNotFound());
+        assertFalse(containsOrder(mockMvc.perform(get("/orders")).andExpect(status().isOk()).andReturn(), orderId));
+
+        mockMvc.perform(get("/orders/" + orderId).cookie(primaryReads)).andExpect(status().isOk());
+        assertTrue(containsOrder(mockMvc.perform(get("/orders").cookie(primaryReads)).andExpect(status().isOk()).andReturn(), orderId));
+    }
+
+    @Test
+    void replicaPoolIsExportedLikeThePrimaryPool() {
+        assertNotNull(meterRegistry.find("hikaricp.connections").tag("pool", "order-service").gauge());
+        assertNotNull(meterRegistry.find("hikaricp.connections").tag("pool", "order-service-replica-0").gauge());
+    }
+
+    private boolean containsOrder(MvcResult result, long orderId) throws Exception {
+        for (JsonNode order : objectMapper.readTree(result.getResponse().getContentAsString()).get("orders")) {
+            if (order.get("id").asLong() == orderId) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,54 @@
+package com.laan.orderservice.filter;
+
+import org.junit.jupiter.api.Test;
+import org.slf4j.MDC;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MdcFilterTests {
+
+    private final MdcFilter mdcFilter = new MdcFilter();
+
+    @Test
+    void generatedIdIsLoggedAndEchoed() throws ServletException, IOException {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        String loggedId = filter(new MockHttpServletRequest("GET", "/orders/1"), response);
+
+        assertTrue(loggedId.matches("[0-9a-f]{32}"));
+        assertEquals(loggedId, response.getHeader(MdcFilter.REQUEST_ID_HEADER));
+        assertNull(MDC.get(MdcFilter.MDC_KEY));
+    }
+
+    @Test
+    void requestIdOfClientIsKept() throws ServletException, IOException {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/orders/1");
+        request.addHeader(MdcFilter.REQUEST_ID_HEADER, "client-id.42_a");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        assertEquals("client-id.42_a", filter(request, response));
+        assertEquals("client-id.42_a", response.getHeader(MdcFilter.REQUEST_ID_HEADER));
+    }
+
+    @Test
+    void unsafeRequestIdOfClientIsReplaced() throws ServletException, IOException {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/orders/1");
+        request.addHeader(MdcFilter.REQUEST_ID_HEADER, "forged\nlog line");
+
+        assertTrue(filter(request, new MockHttpServletResponse()).matches("[0-9a-f]{32}"));
+    }
+
+    private String filter(MockHttpServletRequest request, MockHttpServletResponse response) throws ServletException, IOException {
+        AtomicReference<String> loggedId = new AtomicReference<>();
+        FilterChain filterChain = (chainRequest, chainResponse) -> loggedId.set(MDC.get(MdcFilter.MDC_KEY));
+        mdcFilter.doFilter(request, response, filterChain);
+        return loggedId.get();
+    }
+}
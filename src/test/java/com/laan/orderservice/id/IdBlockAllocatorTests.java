@@ -0,0 +1,87 @@
+package com.laan.orderservice.id;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@SpringBootTest
+@ActiveProfiles({"embedded", "test"})
+class IdBlockAllocatorTests {
+
+    private static final String SEQUENCE_NAME = "id_block_allocator_test";
+
+    // a sequence of its own, the allocator keeps the block of the other one
+    private static final String INSERTED_SEQUENCE_NAME = "id_block_allocator_inserted_test";
+
+    private static final int THREADS = 8;
+
+    private static final int IDS_PER_THREAD = 100;
+
+    @Autowired
+    private IdBlockAllocator idBlockAllocator;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void setUp() {
+        for (String sequenceName : List.of(SEQUENCE_NAME, INSERTED_SEQUENCE_NAME)) {
+            jdbcTemplate.execute("create table if not exists " + sequenceName + " (id bigint primary key)");
+            jdbcTemplate.update("delete from " + sequenceName);
+            jdbcTemplate.update("delete from id_generator where sequence_name = ?", sequenceName);
+            jdbcTemplate.update("insert into id_generator (sequence_name, next_val) values (?, 1)", sequenceName);
+        }
+    }
+
+    @Test
+    void concurrentCallersGetUniqueIdsFromSharedBlocks() throws Exception {
+        Set<Long> ids = ConcurrentHashMap.newKeySet();
+        ExecutorService executorService = Executors.newFixedThreadPool(THREADS);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < THREADS; i++) {
+                futures.add(executorService.submit(() -> {
+                    for (int j = 0; j < IDS_PER_THREAD; j++) {
+                        ids.add(idBlockAllocator.nextId(SEQUENCE_NAME));
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executorService.shutdown();
+        }
+
+        int total = THREADS * IDS_PER_THREAD;
+        assertEquals(total, ids.size());
+        assertEquals(1L, Collections.min(ids));
+        assertEquals(total, Collections.max(ids));
+        // the table is visited once per block of 50 ids
+        assertEquals(total + 1, jdbcTemplate.queryForObject("select next_val from id_generator where sequence_name = ?",
+                Long.class, SEQUENCE_NAME));
+    }
+
+    @Test
+    void blockStartsAboveIdsInsertedWithoutTheAllocator() {
+        jdbcTemplate.update("insert into " + INSERTED_SEQUENCE_NAME + " (id) values (500)");
+
+        assertEquals(501L, idBlockAllocator.nextId(INSERTED_SEQUENCE_NAME));
+        assertEquals(551L, jdbcTemplate.queryForObject("select next_val from id_generator where sequence_name = ?",
+                Long.class, INSERTED_SEQUENCE_NAME));
+    }
+}
@@ -0,0 +1,122 @@
+package com.laan.orderservice.idempotency;
+
+import com.laan.orderservice.exception.IdempotencyKeyMismatchException;
+import com.laan.orderservice.response.OrderResponse;
+import com.laan.orderservice.service.OrderService;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import javax.persistence.EntityManagerFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+
+import static com.laan.orderservice.TestOrderRequests.orderRequest;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@SpringBootTest
+@ActiveProfiles({"embedded", "test"})
+class OrderIdempotencyHandlerTests {
+
+    private static final long PRODUCT_ID = 4001;
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private OrderIdempotencyHandler orderIdempotencyHandler;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate.update("delete from product where id = ?", PRODUCT_ID);
+        jdbcTemplate.update("insert into product (id, type, unit_price, quantity) values (?, 'SKIRT', 100.00, 50)", PRODUCT_ID);
+    }
+
+    @Test
+    void replayedKeyReturnsFirstResponseWithoutPlacingAgain() {
+        String key = UUID.randomUUID().toString();
+        OrderResponse orderResponse = orderService.addOrder(orderRequest(PRODUCT_ID, 2), key);
+
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        OrderResponse replayedOrderResponse = orderService.addOrder(orderRequest(PRODUCT_ID, 2), key);
+
+        assertEquals(orderResponse.getId(), replayedOrderResponse.getId());
+        assertEquals(0, statistics.getPrepareStatementCount());
+        assertEquals(48, stock());
+    }
+
+    @Test
+    void replayedKeyIsFoundInDatabaseAfterCacheExpired() {
+        String key = UUID.randomUUID().toString();
+        OrderResponse orderResponse = orderService.addOrder(orderRequest(PRODUCT_ID, 2), key);
+
+        orderIdempotencyHandler.invalidateAll();
+        OrderResponse replayedOrderResponse = orderService.addOrder(orderRequest(PRODUCT_ID, 2), key);
+
+        assertEquals(orderResponse.getId(), replayedOrderResponse.getId());
+        assertEquals(orderResponse.getTotalPrice(), replayedOrderResponse.getTotalPrice());
+        assertEquals(1, replayedOrderResponse.getProducts().size());
+        assertEquals(48, stock());
+    }
+
+    @Test
+    void concurrentDuplicatesArePlacedOnce() throws Exception {
+        String key = UUID.randomUUID().toString();
+        int threads = 8;
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executorService = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<OrderResponse>> futures = new ArrayList<>();
+            for (int i = 0; i < threads; i++) {
+                futures.add(executorService.submit(() -> {
+                    start.await();
+                    return orderService.addOrder(orderRequest(PRODUCT_ID, 1), key);
+                }));
+            }
+            start.countDown();
+
+            Set<Long> orderIds = ConcurrentHashMap.newKeySet();
+            for (Future<OrderResponse> future : futures) {
+                orderIds.add(future.get().getId());
+            }
+            assertEquals(1, orderIds.size());
+        } finally {
+            executorService.shutdown();
+        }
+        assertEquals(49, stock());
+    }
+
+    @Test
+    void keyReusedForDifferentOrderIsRejected() {
+        String key = UUID.randomUUID().toString();
+        orderService.addOrder(orderRequest(PRODUCT_ID, 1), key);
+
+        assertThrows(IdempotencyKeyMismatchException.class, () -> orderService.addOrder(orderRequest(PRODUCT_ID, 3), key));
+        assertEquals(49, stock());
+    }
+
+    private int stock() {
+        return jdbcTemplate.queryForObject("select quantity from product where id = ?", Integer.class, PRODUCT_ID);
+    }
+}
@@ -0,0 +1,167 @@
+package com.laan.orderservice.intake;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.laan.orderservice.enums.IntakeStatus;
+import com.laan.orderservice.exception.IdempotencyKeyMismatchException;
+import com.laan.orderservice.exception.IntakeOverloadedException;
+import com.laan.orderservice.exception.OrderIntakeNotFoundException;
+import com.laan.orderservice.filter.MdcFilter;
+import com.laan.orderservice.metrics.JmsSendMetrics;
+import com.laan.orderservice.response.OrderIntakeResponse;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.MDC;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jms.core.JmsTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import javax.jms.ConnectionFactory;
+import javax.jms.JMSException;
+import javax.jms.Message;
+import javax.jms.TextMessage;
+import java.util.UUID;
+
+import static com.laan.orderservice.TestOrderRequests.orderRequest;
+import static com.laan.orderservice.TestOrderRequests.productRequest;
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@ActiveProfiles({"embedded", "test"})
+class OrderIntakeHandlerTests {
+
+    private static final long PRODUCT_ID = 5001;
+
+    @Autowired
+    private OrderIntakeHandler orderIntakeHandler;
+
+    @Autowired
+    private OrderIntakeStore orderIntakeStore;
+
+    @Autowired
+    private OrderIntakeProcessor orderIntakeProcessor;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ConnectionFactory connectionFactory;
+
+    @Autowired
+    private JmsSendMetrics jmsSendMetrics;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate.update("delete from product where id = ?", PRODUCT_ID);
+        jdbcTemplate.update("insert into product (id, type, unit_price, quantity) values (?, 'SKIRT', 100.00, 50)", PRODUCT_ID);
+    }
+
+    @Test
+    void acceptedOrderIsPlacedInTheBackground() throws InterruptedException {
+        OrderIntakeResponse orderIntakeResponse = orderIntakeHandler.accept(orderRequest(PRODUCT_ID, 2), null);
+        assertEquals(IntakeStatus.ACCEPTED, orderIntakeResponse.getStatus());
+
+        OrderIntakeResponse placedOrderIntakeResponse = awaitOutcome(orderIntakeResponse.getTrackingId());
+
+        assertEquals(IntakeStatus.CREATED, placedOrderIntakeResponse.getStatus());
+        assertEquals(1, jdbcTemplate.queryForObject("select count(*) from `order` where id = ?", Integer.class, placedOrderIntakeResponse.getOrderId()));
+        assertEquals(48, jdbcTemplate.queryForObject("select quantity from product where id = ?", Integer.class, PRODUCT_ID));
+    }
+
+    @Test
+    void rejectedOrderReportsTheReason() throws InterruptedException {
+        OrderIntakeResponse orderIntakeResponse = orderIntakeHandler.accept(orderRequest(-1L, productRequest(PRODUCT_ID, 2)), null);
+
+        OrderIntakeResponse rejectedOrderIntakeResponse = awaitOutcome(orderIntakeResponse.getTrackingId());
+
+        assertEquals(IntakeStatus.REJECTED, rejectedOrderIntakeResponse.getStatus());
+        assertEquals("User cannot be found for the id: -1", rejectedOrderIntakeResponse.getMessage());
+        assertNull(rejectedOrderIntakeResponse.getOrderId());
+        assertEquals(50, jdbcTemplate.queryForObject("select quantity from product where id = ?", Integer.class, PRODUCT_ID));
+    }
+
+    @Test
+    void intakeKeepsTheIdOfTheRequestThatAcceptedIt() throws InterruptedException {
+        MDC.put(MdcFilter.MDC_KEY, "intake-test-request");
+        String trackingId;
+        try {
+            trackingId = orderIntakeHandler.accept(orderRequest(PRODUCT_ID, 2), null).getTrackingId();
+        } finally {
+            MDC.remove(MdcFilter.MDC_KEY);
+        }
+
+        awaitOutcome(trackingId);
+        assertEquals("intake-test-request", jdbcTemplate.queryForObject("select request_id from order_intake where id = ?", String.class, trackingId));
+    }
+
+    @Test
+    void intakeMessageCarriesTheIdOfTheRequest() throws JMSException {
+        // a queue without listeners, so that the message stays for the test to read
+        OrderIntakeHandler unheardOrderIntakeHandler = new OrderIntakeHandler(orderIntakeStore, connectionFactory, jmsSendMetrics,
+                objectMapper, "unheard-intake-queue", 100);
+        MDC.put(MdcFilter.MDC_KEY, "intake-message-test-request");
+        String trackingId;
+        try {
+            trackingId = unheardOrderIntakeHandler.accept(orderRequest(PRODUCT_ID, 2), null).getTrackingId();
+        } finally {
+            MDC.remove(MdcFilter.MDC_KEY);
+        }
+
+        JmsTemplate jmsTemplate = new JmsTemplate(connectionFactory);
+        jmsTemplate.setReceiveTimeout(10000);
+        Message message = jmsTemplate.receive("unheard-intake-queue");
+        assertNotNull(message);
+        assertEquals(trackingId, ((TextMessage) message).getText());
+        assertEquals("intake-message-test-request", message.getJMSCorrelationID());
+        // placed here rather than by the sweep, so that it cannot take stock during another test
+        orderIntakeProcessor.processAccepted();
+        assertEquals(IntakeStatus.CREATED, orderIntakeHandler.getIntake(trackingId).getStatus());
+    }
+
+    @Test
+    void failingIntakeIsRejectedWithoutHoldingBackTheOthers() throws InterruptedException {
+        // readable, but fails the placement of its whole batch
+        String failingTrackingId = UUID.randomUUID().toString();
+        orderIntakeStore.insert(failingTrackingId, null, "{\"userId\": 1}", null);
+        String trackingId = orderIntakeHandler.accept(orderRequest(PRODUCT_ID, 2), null).getTrackingId();
+
+        assertEquals(IntakeStatus.CREATED, awaitOutcome(trackingId).getStatus());
+        OrderIntakeResponse failedOrderIntakeResponse = awaitOutcome(failingTrackingId);
+        assertEquals(IntakeStatus.REJECTED, failedOrderIntakeResponse.getStatus());
+        assertEquals("Order cannot be placed", failedOrderIntakeResponse.getMessage());
+    }
+
+    @Test
+    void replayedKeyReturnsTheFirstIntake() throws InterruptedException {
+        String key = UUID.randomUUID().toString();
+        String trackingId = orderIntakeHandler.accept(orderRequest(PRODUCT_ID, 2), key).getTrackingId();
+
+        assertEquals(trackingId, orderIntakeHandler.accept(orderRequest(PRODUCT_ID, 2), key).getTrackingId());
+        assertThrows(IdempotencyKeyMismatchException.class, () -> orderIntakeHandler.accept(orderRequest(PRODUCT_ID, 3), key));
+        awaitOutcome(trackingId);
+        assertEquals(48, jdbcTemplate.queryForObject("select quantity from product where id = ?", Integer.class, PRODUCT_ID));
+    }
+
+    @Test
+    void fullIntakeRefusesNewOrders() {
+        OrderIntakeHandler fullOrderIntakeHandler = new OrderIntakeHandler(orderIntakeStore, connectionFactory, jmsSendMetrics,
+                objectMapper, "unused-intake-queue", 0);
+
+        assertThrows(IntakeOverloadedException.class, () -> fullOrderIntakeHandler.accept(orderRequest(PRODUCT_ID, 2), null));
+        assertThrows(OrderIntakeNotFoundException.class, () -> orderIntakeHandler.getIntake(UUID.randomUUID().toString()));
+    }
+
+    private OrderIntakeResponse awaitOutcome(String trackingId) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10_000;
+        OrderIntakeResponse orderIntakeResponse = orderIntakeHandler.getIntake(trackingId);
+        while (orderIntakeResponse.getStatus() == IntakeStatus.ACCEPTED && System.currentTimeMillis() < deadline) {
+            Thread.sleep(50);
+            orderIntakeResponse = orderIntakeHandler.getIntake(trackingId);
+        }
+        return orderIntakeResponse;
+    }
+}
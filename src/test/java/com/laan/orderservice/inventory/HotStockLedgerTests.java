@@ -0,0 +1,152 @@
+package com.laan.orderservice.inventory;
+
+import com.laan.orderservice.exception.QuantityMismatchException;
+import com.laan.orderservice.service.OrderService;
+import com.laan.orderservice.service.StockReservationService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.laan.orderservice.TestOrderRequests.orderRequest;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+// a database of its own: the hot product is configured before the context starts, which Liquibase cannot share
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:hot-stock;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE",
+        "spring.activemq.broker-url=vm://hot-stock?broker.persistent=false",
+        "order-service.inventory.hot-product-ids=6001"})
+@ActiveProfiles({"embedded", "test"})
+class HotStockLedgerTests {
+
+    private static final long PRODUCT_ID = 6001;
+
+    @Autowired
+    private HotStockLedger hotStockLedger;
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private StockReservationService stockReservationService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @BeforeEach
+    void setUp() {
+        hotStockLedger.flush();
+        jdbcTemplate.update("delete from product where id = ?", PRODUCT_ID);
+        jdbcTemplate.update("insert into product (id, type, unit_price, quantity) values (?, 'SHIRT', 100.00, 50)", PRODUCT_ID);
+        hotStockLedger.refresh(PRODUCT_ID);
+    }
+
+    @Test
+    void concurrentOrdersNeverOversellAndReachTheDatabase() throws Exception {
+        ExecutorService executorService = Executors.newFixedThreadPool(8);
+        AtomicInteger placedOrders = new AtomicInteger();
+        AtomicInteger refusedOrders = new AtomicInteger();
+        List<Future<?>> futures = new ArrayList<>();
+        for (int i = 0; i < 80; i++) {
+            futures.add(executorService.submit(() -> {
+                try {
+                    orderService.addOrder(orderRequest(PRODUCT_ID, 1));
+                    placedOrders.incrementAndGet();
+                } catch (QuantityMismatchException exception) {
+                    refusedOrders.incrementAndGet();
+                }
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get(30, TimeUnit.SECONDS);
+        }
+        executorService.shutdown();
+
+        assertEquals(50, placedOrders.get());
+        assertEquals(30, refusedOrders.get());
+        assertEquals(0, hotStockLedger.getAvailable(PRODUCT_ID));
+
+        hotStockLedger.flush();
+        assertEquals(0, jdbcTemplate.queryForObject("select quantity from product where id = ?", Integer.class, PRODUCT_ID));
+        assertEquals(0, jdbcTemplate.queryForObject("select count(*) from stock_journal", Integer.class));
+    }
+
+    @Test
+    void rolledBackReservationGivesStockBack() {
+        transactionTemplate.executeWithoutResult(status -> {
+            stockReservationService.reserve(Map.of(PRODUCT_ID, 5));
+            assertEquals(45, hotStockLedger.getAvailable(PRODUCT_ID));
+            status.setRollbackOnly();
+        });
+
+        assertEquals(50, hotStockLedger.getAvailable(PRODUCT_ID));
+        assertEquals(0, jdbcTemplate.queryForObject("select count(*) from stock_journal", Integer.class));
+    }
+
+    @Test
+    void refreshWaitsForACommittedReservationToComplete() throws Exception {
+        ExecutorService executorService = Executors.newSingleThreadExecutor();
+        List<Future<?>> refreshes = new ArrayList<>();
+        transactionTemplate.executeWithoutResult(status -> {
+            stockReservationService.reserve(Map.of(PRODUCT_ID, 5));
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    // the reservation is in the journal but still pending in the memory
+                    Future<?> refresh = executorService.submit(() -> hotStockLedger.refresh(PRODUCT_ID));
+                    refreshes.add(refresh);
+                    assertThrows(TimeoutException.class, () -> refresh.get(200, TimeUnit.MILLISECONDS));
+                }
+            });
+        });
+        refreshes.get(0).get(30, TimeUnit.SECONDS);
+        executorService.shutdown();
+
+        assertEquals(45, hotStockLedger.getAvailable(PRODUCT_ID));
+    }
+
+    @Test
+    void deletedOrderGivesStockBackOnceCommitted() {
+        Long orderId = orderService.addOrder(orderRequest(PRODUCT_ID, 5)).getId();
+        assertEquals(45, hotStockLedger.getAvailable(PRODUCT_ID));
+
+        orderService.deleteOrder(orderId);
+
+        assertEquals(50, hotStockLedger.getAvailable(PRODUCT_ID));
+        hotStockLedger.flush();
+        assertEquals(50, jdbcTemplate.queryForObject("select quantity from product where id = ?", Integer.class, PRODUCT_ID));
+    }
+
+    @Test
+    void journalLeftByACrashIsCountedAndApplied() {
+        // reservations committed with their orders but not applied before the crash
+        jdbcTemplate.update("insert into stock_journal (id, product_id, quantity, created_timestamp) values (-1, ?, 7, current_timestamp)", PRODUCT_ID);
+        hotStockLedger.refresh(PRODUCT_ID);
+        assertEquals(43, hotStockLedger.getAvailable(PRODUCT_ID));
+
+        hotStockLedger.recover();
+
+        assertEquals(43, jdbcTemplate.queryForObject("select quantity from product where id = ?", Integer.class, PRODUCT_ID));
+        assertEquals(43, hotStockLedger.getAvailable(PRODUCT_ID));
+        assertThrows(QuantityMismatchException.class, () -> orderService.addOrder(orderRequest(PRODUCT_ID, 44)));
+    }
+}
@@ -0,0 +1,264 @@
+package com.laan.orderservice.load;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.HdrHistogram.Histogram;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Sends a weighted mix of order requests from concurrent workers and records the latency of every request.
+ * Each worker only changes the orders it placed itself, so that the workers don't fail each other with
+ * version mismatches and invalid status transitions.
+ */
+final class LoadDriver {
+
+    private static final Duration REQUEST_TIMEOUT = Duration.ofSeconds(30);
+
+    private final URI ordersUri;
+
+    private final LoadSettings settings;
+
+    private final LoadTestData loadTestData;
+
+    private final HttpClient httpClient;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private final LoadOperation[] operationsByWeight;
+
+    /**
+     * @param baseUri base of the service, e.g. http://localhost:8080/order-service
+     */
+    LoadDriver(URI baseUri, LoadSettings settings, LoadTestData loadTestData) {
+        this.ordersUri = URI.create(baseUri.toString().replaceAll("/$", "") + "/orders");
+        this.settings = settings;
+        this.loadTestData = loadTestData;
+        this.httpClient = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(REQUEST_TIMEOUT)
+                .build();
+        List<LoadOperation> operations = new ArrayList<>();
+        settings.getWeights().forEach((loadOperation, weight) -> operations.addAll(Collections.nCopies(weight, loadOperation)));
+        if (operations.isEmpty()) {
+            throw new IllegalArgumentException("At least one operation must have a positive weight");
+        }
+        this.operationsByWeight = operations.toArray(new LoadOperation[0]);
+    }
+
+    LoadReport run() throws InterruptedException {
+        long startNanos = System.nanoTime();
+        long measureFromNanos = startNanos + settings.getWarmup().toNanos();
+        long endNanos = measureFromNanos + settings.getDuration().toNanos();
+
+        LoadReport loadReport = new LoadReport(settings.getDuration());
+        ExecutorService executorService = Executors.newFixedThreadPool(settings.getConcurrency());
+        try {
+            List<Future<Worker>> futures = new ArrayList<>();
+            for (int i = 0; i < settings.getConcurrency(); i++) {
+                Worker worker = new Worker(measureFromNanos, endNanos);
+                futures.add(executorService.submit(() -> {
+                    worker.run();
+                    return worker;
+                }));
+            }
+            for (Future<Worker> future : futures) {
+                try {
+                    future.get().addTo(loadReport);
+                } catch (ExecutionException exception) {
+                    throw new IllegalStateException("Load worker failed", exception.getCause());
+                }
+            }
+        } finally {
+            executorService.shutdownNow();
+        }
+        return loadReport;
+    }
+
+    private final class Worker {
+
+        private final long measureFromNanos;
+
+        private final long endNanos;
+
+        private final Map<LoadOperation, Histogram> latencies = new EnumMap<>(LoadOperation.class);
+
+        private final Map<LoadOperation, Long> errors = new EnumMap<>(LoadOperation.class);
+
+        // orders placed by this worker, which are still pending or processing
+        private final List<PlacedOrder> placedOrders = new ArrayList<>();
+
+        private final long userId;
+
+        private Worker(long measureFromNanos, long endNanos) {
+            this.measureFromNanos = measureFromNanos;
+            this.endNanos = endNanos;
+            List<Long> userIds = loadTestData.getUserIds();
+            this.userId = userIds.get(ThreadLocalRandom.current().nextInt(userIds.size()));
+            for (LoadOperation loadOperation : LoadOperation.values()) {
+                latencies.put(loadOperation, new Histogram(3));
+                errors.put(loadOperation, 0L);
+            }
+        }
+
+        private void run() throws IOException, InterruptedException {
+            while (System.nanoTime() < endNanos) {
+                LoadOperation loadOperation = operationsByWeight[ThreadLocalRandom.current().nextInt(operationsByWeight.length)];
+                PlacedOrder placedOrder = pickOrder(loadOperation);
+                if (placedOrder == null && loadOperation != LoadOperation.GET_ORDERS) {
+                    // nothing to change yet, place an order instead
+                    loadOperation = LoadOperation.ADD_ORDER;
+                }
+                send(loadOperation, placedOrder);
+            }
+        }
+
+        private PlacedOrder pickOrder(LoadOperation loadOperation) {
+            if (loadOperation == LoadOperation.UPDATE_ORDER || loadOperation == LoadOperation.DELETE_ORDER) {
+                // only pending orders can be updated or deleted
+                for (PlacedOrder placedOrder : placedOrders) {
+                    if ("PENDING".equals(placedOrder.status)) {
+                        return placedOrder;
+                    }
+                }
+                return null;
+            }
+            if (placedOrders.isEmpty()) {
+                return null;
+            }
+            return placedOrders.get(ThreadLocalRandom.current().nextInt(placedOrders.size()));
+        }
+
+        private void send(LoadOperation loadOperation, PlacedOrder placedOrder) throws IOException, InterruptedException {
+            HttpRequest httpRequest = createRequest(loadOperation, placedOrder);
+            long startNanos = System.nanoTime();
+            HttpResponse<String> httpResponse = httpClient.send(httpRequest, HttpResponse.BodyHandlers.ofString());
+            long latencyNanos = System.nanoTime() - startNanos;
+
+            boolean successful = httpResponse.statusCode() / 100 == 2;
+            if (startNanos >= measureFromNanos && startNanos < endNanos) {
+                latencies.get(loadOperation).recordValue(Math.max(1, latencyNanos / 1000));
+                if (!successful && errors.merge(loadOperation, 1L, Long::sum) == 1) {
+                    // the first failure of each endpoint is enough to tell what went wrong
+                    System.err.println(loadOperation.getEndpoint() + " failed with " + httpResponse.statusCode() + ": " + httpResponse.body());
+                }
+            }
+            if (successful) {
+                onResponse(loadOperation, placedOrder, httpResponse.body());
+            }
+        }
+
+        private HttpRequest createRequest(LoadOperation loadOperation, PlacedOrder placedOrder) throws IOException {
+            switch (loadOperation) {
+                case ADD_ORDER:
+                    return jsonRequest(ordersUri).POST(HttpRequest.BodyPublishers.ofString(orderBody(null))).build();
+                case GET_ORDERS:
+                    return jsonRequest(URI.create(ordersUri + "?userId=" + userId + "&limit=20")).GET().build();
+                case GET_ORDER:
+                    return jsonRequest(orderUri(placedOrder)).GET().build();
+                case UPDATE_ORDER:
+                    return jsonRequest(orderUri(placedOrder)).PUT(HttpRequest.BodyPublishers.ofString(orderBody(placedOrder.version))).build();
+                case UPDATE_ORDER_STATUS:
+                    String nextStatus = "PENDING".equals(placedOrder.status) ? "PROCESSING" : "COMPLETED";
+                    return jsonRequest(URI.create(orderUri(placedOrder) + "/status/" + nextStatus)).PUT(HttpRequest.BodyPublishers.noBody()).build();
+                case DELETE_ORDER:
+                    return jsonRequest(orderUri(placedOrder)).DELETE().build();
+                default:
+                    throw new IllegalArgumentException("Unknown operation: " + loadOperation);
+            }
+        }
+
+        private void onResponse(LoadOperation loadOperation, PlacedOrder placedOrder, String body) throws IOException {
+            switch (loadOperation) {
+                case ADD_ORDER:
+                    JsonNode addedOrder = objectMapper.readTree(body);
+                    placedOrders.add(new PlacedOrder(addedOrder.get("id").asLong(), addedOrder.get("version").asLong(), addedOrder.get("status").asText()));
+                    break;
+                case UPDATE_ORDER:
+                case UPDATE_ORDER_STATUS:
+                    JsonNode changedOrder = objectMapper.readTree(body);
+                    placedOrder.version = changedOrder.get("version").asLong();
+                    placedOrder.status = changedOrder.get("status").asText();
+                    if ("COMPLETED".equals(placedOrder.status)) {
+                        placedOrders.remove(placedOrder);
+                    }
+                    break;
+                case DELETE_ORDER:
+                    placedOrders.remove(placedOrder);
+                    break;
+                default:
+                    break;
+            }
+        }
+
+        private String orderBody(Long version) throws IOException {
+            List<Long> productIds = loadTestData.getProductIds();
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            ObjectNode orderRequest = objectMapper.createObjectNode();
+            orderRequest.put("userId", userId);
+            if (version != null) {
+                orderRequest.put("version", version);
+            }
+            ArrayNode products = orderRequest.putArray("products");
+            Set<Long> pickedProductIds = new HashSet<>();
+            while (pickedProductIds.size() < Math.min(settings.getProductsPerOrder(), productIds.size())) {
+                pickedProductIds.add(productIds.get(random.nextInt(productIds.size())));
+            }
+            for (Long productId : pickedProductIds) {
+                products.addObject().put("id", productId).put("quantity", random.nextInt(1, 4));
+            }
+            return objectMapper.writeValueAsString(orderRequest);
+        }
+
+        private URI orderUri(PlacedOrder placedOrder) {
+            return URI.create(ordersUri + "/" + placedOrder.id);
+        }
+
+        private HttpRequest.Builder jsonRequest(URI uri) {
+            return HttpRequest.newBuilder(uri)
+                    .timeout(REQUEST_TIMEOUT)
+                    .header("Content-Type", "application/json")
+                    .header("Accept", "application/json");
+        }
+
+        private void addTo(LoadReport loadReport) {
+            for (LoadOperation loadOperation : LoadOperation.values()) {
+                loadReport.add(loadOperation, latencies.get(loadOperation), errors.get(loadOperation));
+            }
+        }
+    }
+
+    private static final class PlacedOrder {
+
+        private final long id;
+
+        private long version;
+
+        private String status;
+
+        private PlacedOrder(long id, long version, String status) {
+            this.id = id;
+            this.version = version;
+            this.status = status;
+        }
+    }
+}
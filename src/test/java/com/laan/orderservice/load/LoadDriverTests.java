@@ -0,0 +1,53 @@
+package com.laan.orderservice.load;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// a database and a broker of its own: Liquibase cannot apply the changelog again on the database shared by the other tests,
+// and events of this database's orders must not reach the other tests
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "spring.datasource.url=jdbc:h2:mem:load-driver;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE",
+        "spring.activemq.broker-url=vm://load-driver?broker.persistent=false"})
+@ActiveProfiles({"embedded", "test"})
+class LoadDriverTests {
+
+    @LocalServerPort
+    private int port;
+
+    @Value("${server.servlet.context-path}")
+    private String contextPath;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void runSendsEveryOperationWithoutErrors() throws InterruptedException {
+        LoadTestData loadTestData = LoadTestData.seed(jdbcTemplate, 4, 20);
+        // equal weights, so that the short run sends every operation even on a slow machine
+        Map<LoadOperation, Integer> weights = new EnumMap<>(LoadOperation.class);
+        for (LoadOperation loadOperation : LoadOperation.values()) {
+            weights.put(loadOperation, 1);
+        }
+        LoadSettings settings = new LoadSettings(4, Duration.ZERO, Duration.ofSeconds(3), 3, weights);
+
+        LoadReport loadReport = new LoadDriver(URI.create("http://localhost:" + port + contextPath), settings, loadTestData).run();
+
+        for (LoadOperation loadOperation : LoadOperation.values()) {
+            assertTrue(loadReport.getCount(loadOperation) > 0, loadOperation + " was not sent");
+            assertEquals(0, loadReport.getErrors(loadOperation), loadOperation + " failed");
+        }
+    }
+}
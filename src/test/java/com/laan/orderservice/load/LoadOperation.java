@@ -0,0 +1,28 @@
+package com.laan.orderservice.load;
+
+/**
+ * Requests the load driver sends, following the scenarios of order-service-curls.txt
+ */
+enum LoadOperation {
+
+    ADD_ORDER("POST /orders"),
+    GET_ORDERS("GET /orders"),
+    GET_ORDER("GET /orders/{id}"),
+    UPDATE_ORDER("PUT /orders/{id}"),
+    UPDATE_ORDER_STATUS("PUT /orders/{id}/status/{status}"),
+    DELETE_ORDER("DELETE /orders/{id}");
+
+    private final String endpoint;
+
+    LoadOperation(String endpoint) {
+        this.endpoint = endpoint;
+    }
+
+    String getEndpoint() {
+        return endpoint;
+    }
+
+    String getWeightProperty() {
+        return "load.weight." + name().toLowerCase().replace('_', '-');
+    }
+}
@@ -0,0 +1,60 @@
+package com.laan.orderservice.load;
+
+import org.HdrHistogram.Histogram;
+
+import java.io.PrintStream;
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Latencies and errors per endpoint of a load run. Latencies are kept in microseconds.
+ */
+final class LoadReport {
+
+    private final Duration duration;
+
+    private final Map<LoadOperation, Histogram> latencies = new EnumMap<>(LoadOperation.class);
+
+    private final Map<LoadOperation, Long> errors = new EnumMap<>(LoadOperation.class);
+
+    LoadReport(Duration duration) {
+        this.duration = duration;
+        for (LoadOperation loadOperation : LoadOperation.values()) {
+            latencies.put(loadOperation, new Histogram(3));
+            errors.put(loadOperation, 0L);
+        }
+    }
+
+    void add(LoadOperation loadOperation, Histogram histogram, long errorCount) {
+        latencies.get(loadOperation).add(histogram);
+        errors.merge(loadOperation, errorCount, Long::sum);
+    }
+
+    long getCount(LoadOperation loadOperation) {
+        return latencies.get(loadOperation).getTotalCount();
+    }
+
+    long getErrors(LoadOperation loadOperation) {
+        return errors.get(loadOperation);
+    }
+
+    void print(PrintStream out) {
+        double seconds = duration.toMillis() / 1000.0;
+        out.printf("%-34s %9s %7s %10s %9s %9s %9s %9s%n", "endpoint", "requests", "errors", "req/s", "p50 ms", "p99 ms", "p999 ms", "max ms");
+        long totalCount = 0;
+        for (LoadOperation loadOperation : LoadOperation.values()) {
+            Histogram histogram = latencies.get(loadOperation);
+            totalCount += histogram.getTotalCount();
+            out.printf("%-34s %9d %7d %10.1f %9.2f %9.2f %9.2f %9.2f%n", loadOperation.getEndpoint(),
+                    histogram.getTotalCount(), errors.get(loadOperation), histogram.getTotalCount() / seconds,
+                    millis(histogram.getValueAtPercentile(50)), millis(histogram.getValueAtPercentile(99)),
+                    millis(histogram.getValueAtPercentile(99.9)), millis(histogram.getMaxValue()));
+        }
+        out.printf("%-34s %9d %7s %10.1f%n", "total", totalCount, "", totalCount / seconds);
+    }
+
+    private static double millis(long micros) {
+        return micros / 1000.0;
+    }
+}
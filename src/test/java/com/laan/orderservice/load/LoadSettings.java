@@ -0,0 +1,76 @@
+package com.laan.orderservice.load;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Settings of a load run, read from system properties so that they can be passed with -D on the command line
+ */
+final class LoadSettings {
+
+    private static final Map<LoadOperation, Integer> DEFAULT_WEIGHTS = Map.of(
+            LoadOperation.ADD_ORDER, 30,
+            LoadOperation.GET_ORDERS, 15,
+            LoadOperation.GET_ORDER, 25,
+            LoadOperation.UPDATE_ORDER, 10,
+            LoadOperation.UPDATE_ORDER_STATUS, 15,
+            LoadOperation.DELETE_ORDER, 5);
+
+    private final int concurrency;
+
+    private final Duration warmup;
+
+    private final Duration duration;
+
+    private final int productsPerOrder;
+
+    private final Map<LoadOperation, Integer> weights;
+
+    LoadSettings(int concurrency, Duration warmup, Duration duration, int productsPerOrder, Map<LoadOperation, Integer> weights) {
+        this.concurrency = concurrency;
+        this.warmup = warmup;
+        this.duration = duration;
+        this.productsPerOrder = productsPerOrder;
+        this.weights = weights;
+    }
+
+    static LoadSettings fromSystemProperties() {
+        Map<LoadOperation, Integer> weights = new EnumMap<>(LoadOperation.class);
+        for (LoadOperation loadOperation : LoadOperation.values()) {
+            weights.put(loadOperation, Integer.getInteger(loadOperation.getWeightProperty(), DEFAULT_WEIGHTS.get(loadOperation)));
+        }
+        return new LoadSettings(
+                Integer.getInteger("load.concurrency", 16),
+                Duration.ofSeconds(Integer.getInteger("load.warmup-seconds", 10)),
+                Duration.ofSeconds(Integer.getInteger("load.duration-seconds", 60)),
+                Integer.getInteger("load.products-per-order", 3),
+                weights);
+    }
+
+    int getConcurrency() {
+        return concurrency;
+    }
+
+    Duration getWarmup() {
+        return warmup;
+    }
+
+    Duration getDuration() {
+        return duration;
+    }
+
+    int getProductsPerOrder() {
+        return productsPerOrder;
+    }
+
+    Map<LoadOperation, Integer> getWeights() {
+        return weights;
+    }
+
+    @Override
+    public String toString() {
+        return "concurrency=" + concurrency + ", warmup=" + warmup + ", duration=" + duration
+                + ", productsPerOrder=" + productsPerOrder + ", weights=" + weights;
+    }
+}
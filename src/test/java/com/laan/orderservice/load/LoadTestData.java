@@ -0,0 +1,69 @@
+package com.laan.orderservice.load;
+
+import com.laan.orderservice.enums.ProductType;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Users and products the load driver orders with. Stocks are large enough that a run never sells out.
+ */
+final class LoadTestData {
+
+    static final long FIRST_ID = 100_001L;
+
+    private static final int STOCK = 100_000_000;
+
+    private final List<Long> userIds;
+
+    private final List<Long> productIds;
+
+    private LoadTestData(List<Long> userIds, List<Long> productIds) {
+        this.userIds = userIds;
+        this.productIds = productIds;
+    }
+
+    /**
+     * Inserts the users and products, unless an earlier run in the same database already did
+     */
+    static LoadTestData seed(JdbcTemplate jdbcTemplate, int users, int products) {
+        List<Long> userIds = ids(users);
+        List<Long> productIds = ids(products);
+        for (Long userId : userIds) {
+            if (!exists(jdbcTemplate, "user", userId)) {
+                jdbcTemplate.update("insert into `user` (id, name, username, password) values (?, ?, ?, ?)",
+                        userId, "load user " + userId, "load-" + userId, "load");
+            }
+        }
+        ProductType[] productTypes = ProductType.values();
+        for (Long productId : productIds) {
+            if (!exists(jdbcTemplate, "product", productId)) {
+                jdbcTemplate.update("insert into product (id, type, unit_price, quantity) values (?, ?, ?, ?)",
+                        productId, productTypes[(int) (productId % productTypes.length)].name(), 1000 + productId % 100, STOCK);
+            }
+        }
+        return new LoadTestData(userIds, productIds);
+    }
+
+    private static List<Long> ids(int count) {
+        List<Long> ids = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            ids.add(FIRST_ID + i);
+        }
+        return ids;
+    }
+
+    private static boolean exists(JdbcTemplate jdbcTemplate, String table, Long id) {
+        Integer count = jdbcTemplate.queryForObject("select count(*) from `" + table + "` where id = ?", Integer.class, id);
+        return count != null && count > 0;
+    }
+
+    List<Long> getUserIds() {
+        return userIds;
+    }
+
+    List<Long> getProductIds() {
+        return productIds;
+    }
+}
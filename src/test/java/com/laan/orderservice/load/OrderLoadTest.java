@@ -0,0 +1,35 @@
+package com.laan.orderservice.load;
+
+import com.laan.orderservice.OrderServiceApplication;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.net.URI;
+
+/**
+ * Runs the service on the embedded database and broker, seeds load test data and drives a mix of order requests
+ * against it over HTTP, then prints latency percentiles and throughput per endpoint.
+ * Run with mvn -P load-test verify -DskipTests, settings are described in README.md.
+ * @author Lalanke Athauda
+ */
+public class OrderLoadTest {
+
+    public static void main(String[] args) throws InterruptedException {
+        LoadSettings settings = LoadSettings.fromSystemProperties();
+        try (ConfigurableApplicationContext context = new SpringApplicationBuilder(OrderServiceApplication.class)
+                .profiles("embedded", "load-test")
+                .properties("server.port=0")
+                .run(args)) {
+            LoadTestData loadTestData = LoadTestData.seed(context.getBean(JdbcTemplate.class),
+                    Integer.getInteger("load.users", 50), Integer.getInteger("load.products", 200));
+            String port = context.getEnvironment().getRequiredProperty("local.server.port");
+            String contextPath = context.getEnvironment().getProperty("server.servlet.context-path", "");
+            URI baseUri = URI.create("http://localhost:" + port + contextPath);
+
+            System.out.println("Load test against " + baseUri + " with " + settings);
+            LoadReport loadReport = new LoadDriver(baseUri, settings, loadTestData).run();
+            loadReport.print(System.out);
+        }
+    }
+}
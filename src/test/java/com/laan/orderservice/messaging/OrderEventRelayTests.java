@@ -0,0 +1,75 @@
+package com.laan.orderservice.messaging;
+
+import com.laan.orderservice.enums.OrderStatus;
+import com.laan.orderservice.event.OrderStatusChangedEvent;
+import com.laan.orderservice.event.OrderStatusChangedEventSerializer;
+import com.laan.orderservice.filter.MdcFilter;
+import com.laan.orderservice.service.OrderService;
+import org.junit.jupiter.api.Test;
+import org.slf4j.MDC;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jms.core.JmsTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import javax.jms.Message;
+import javax.jms.Queue;
+import javax.jms.TextMessage;
+
+import static com.laan.orderservice.TestOrderRequests.orderRequest;
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@ActiveProfiles({"embedded", "test"})
+class OrderEventRelayTests {
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private JmsTemplate jmsTemplate;
+
+    @Autowired
+    private Queue queue;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private OrderStatusChangedEventSerializer orderStatusChangedEventSerializer;
+
+    @Test
+    void statusChangeIsRelayedToQueue() throws Exception {
+        Long orderId = orderService.addOrder(orderRequest(1, 1)).getId();
+
+        MDC.put(MdcFilter.MDC_KEY, "relay-test-request");
+        try {
+            orderService.updateOrderStatus(orderId, OrderStatus.PROCESSING);
+        } finally {
+            MDC.remove(MdcFilter.MDC_KEY);
+        }
+
+        jmsTemplate.setReceiveTimeout(10000);
+        Message message = jmsTemplate.receiveSelected(queue, OrderEventRelay.ORDER_ID_PROPERTY + " = " + orderId);
+        assertNotNull(message);
+        assertEquals("relay-test-request", message.getJMSCorrelationID());
+        assertEquals(OrderStatusChangedEvent.EVENT_TYPE, message.getStringProperty(OrderEventRelay.EVENT_TYPE_PROPERTY));
+        assertEquals(OrderStatusChangedEvent.SCHEMA_VERSION, message.getIntProperty(OrderEventRelay.SCHEMA_VERSION_PROPERTY));
+        OrderStatusChangedEvent event = orderStatusChangedEventSerializer.deserialize(((TextMessage) message).getText());
+        assertEquals(orderId, event.getOrderId());
+        assertEquals(1L, event.getUserId());
+        assertEquals(OrderStatus.PROCESSING, event.getStatus());
+        assertEquals(1L, event.getVersion());
+        // the event leaves the outbox once the broker accepted it
+        long deadline = System.currentTimeMillis() + 10000;
+        while (countOutboxEvents(orderId) > 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(50);
+        }
+        assertEquals(0, countOutboxEvents(orderId));
+    }
+
+    private int countOutboxEvents(Long orderId) {
+        return jdbcTemplate.queryForObject("select count(*) from order_event_outbox where order_id = ?", Integer.class, orderId);
+    }
+}
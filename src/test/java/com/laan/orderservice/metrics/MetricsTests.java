@@ -0,0 +1,73 @@
+package com.laan.orderservice.metrics;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.metrics.AutoConfigureMetrics;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// a database and broker of their own: the Prometheus registry is only exported with a context of its own
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:metrics;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE",
+        "spring.activemq.broker-url=vm://metrics?broker.persistent=false"})
+@ActiveProfiles({"embedded", "test"})
+@AutoConfigureMockMvc
+@AutoConfigureMetrics
+class MetricsTests {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Test
+    void requestsAreExportedInPrometheusFormat() throws Exception {
+        String response = mockMvc.perform(post("/orders").contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"userId\": 1, \"products\": [{\"id\": 1, \"quantity\": 1}]}"))
+                .andExpect(status().isCreated())
+                .andReturn().getResponse().getContentAsString();
+        long orderId = objectMapper.readTree(response).get("id").asLong();
+        mockMvc.perform(put("/orders/" + orderId + "/status/PROCESSING")).andExpect(status().isOk());
+        mockMvc.perform(get("/orders/-1")).andExpect(status().isNotFound());
+
+        String scrape = awaitScrape("order_service_jms_send_seconds_count{");
+
+        assertTrue(scrape.contains("http_server_requests_seconds_bucket{"));
+        assertTrue(scrape.contains("order_service_service_seconds_bucket{"));
+        assertTrue(scrape.contains("method=\"addOrder\""));
+        assertTrue(scrape.contains("order_service_validator_seconds_count{"));
+        assertTrue(scrape.contains("order_service_exceptions_total{"));
+        assertTrue(scrape.contains("exception=\"OrderNotFoundException\""));
+        assertTrue(scrape.contains("order_service_db_statements_count{"));
+        assertTrue(scrape.contains("uri=\"/orders/{id}\""));
+        assertTrue(scrape.contains("message=\"order-event\""));
+    }
+
+    private String awaitScrape(String expected) throws Exception {
+        // status events reach the broker through the outbox relay, in the background
+        long deadline = System.currentTimeMillis() + 10_000;
+        String scrape = scrape();
+        while (!scrape.contains(expected) && System.currentTimeMillis() < deadline) {
+            Thread.sleep(50);
+            scrape = scrape();
+        }
+        return scrape;
+    }
+
+    private String scrape() throws Exception {
+        return mockMvc.perform(get("/actuator/prometheus"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+    }
+}
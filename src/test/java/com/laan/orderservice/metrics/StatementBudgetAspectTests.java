@@ -0,0 +1,53 @@
+package com.laan.orderservice.metrics;
+
+import com.laan.orderservice.enums.OrderStatus;
+import com.laan.orderservice.exception.StatementBudgetExceededException;
+import com.laan.orderservice.request.OrderRequest;
+import com.laan.orderservice.response.OrderResponse;
+import com.laan.orderservice.service.OrderService;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import static com.laan.orderservice.TestOrderRequests.orderRequest;
+import static com.laan.orderservice.TestOrderRequests.productRequest;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+// a database and broker of their own: getOrder gets a budget too small for an uncached read
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:statement-budget;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE",
+        "spring.activemq.broker-url=vm://statement-budget?broker.persistent=false",
+        "order-service.statements.budget.getOrder=1"})
+@ActiveProfiles({"embedded", "test"})
+class StatementBudgetAspectTests {
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Test
+    void orderChangesStayWithinTheirBudgets() {
+        OrderResponse orderResponse = orderService.addOrder(orderRequest(productRequest(1, 1), productRequest(2, 1)));
+        OrderRequest orderRequest = orderRequest(1, 2);
+        orderRequest.setVersion(orderResponse.getVersion());
+        orderService.updateOrder(orderResponse.getId(), orderRequest);
+        orderService.updateOrderStatus(orderResponse.getId(), OrderStatus.PROCESSING);
+
+        assertEquals(0, meterRegistry.counter(StatementBudgetAspect.METRIC_NAME, "operation", "addOrder").count());
+        assertEquals(0, meterRegistry.counter(StatementBudgetAspect.METRIC_NAME, "operation", "updateOrder").count());
+    }
+
+    @Test
+    void operationOverItsBudgetFails() {
+        OrderResponse orderResponse = orderService.addOrder(orderRequest(1, 1));
+
+        // the version and then the order with its lines
+        assertThrows(StatementBudgetExceededException.class, () -> orderService.getOrder(orderResponse.getId()));
+        assertEquals(1, meterRegistry.counter(StatementBudgetAspect.METRIC_NAME, "operation", "getOrder").count());
+    }
+}
@@ -0,0 +1,118 @@
+package com.laan.orderservice.nativeimage;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.net.ConnectException;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Starts the native binary and then the jar on the embedded database and broker, places and reads an order through
+ * each, and prints the time to the first served page of orders and the resident memory of each afterwards.
+ * Run with mvn -P native verify -DskipTests on a GraalVM JDK, the profile is described in README.md.
+ * @author Lalanke Athauda
+ */
+public class NativeImageSmokeTest {
+
+    private static final Duration STARTUP_TIMEOUT = Duration.ofMinutes(2);
+
+    private static final String ORDER_REQUEST = "{\"userId\": 1, \"products\": [{\"id\": 1, \"quantity\": 1}]}";
+
+    private static final HttpClient HTTP_CLIENT = HttpClient.newHttpClient();
+
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+    public static void main(String[] args) throws Exception {
+        String binary = args[0];
+        String jar = args[1];
+
+        String nativeReport = run("native", List.of(binary));
+        String jarReport = run("jar", List.of(Path.of(System.getProperty("java.home"), "bin", "java").toString(), "-jar", jar));
+        System.out.println(nativeReport);
+        System.out.println(jarReport);
+    }
+
+    private static String run(String name, List<String> command) throws Exception {
+        int port = findFreePort();
+        List<String> arguments = new ArrayList<>(command);
+        arguments.add("--spring.profiles.active=embedded");
+        arguments.add("--server.port=" + port);
+        URI baseUri = URI.create("http://localhost:" + port + "/order-service");
+
+        long start = System.nanoTime();
+        Process process = new ProcessBuilder(arguments).inheritIO().start();
+        try {
+            awaitOrders(process, baseUri);
+            long readyMillis = Duration.ofNanos(System.nanoTime() - start).toMillis();
+
+            HttpResponse<String> created = send(HttpRequest.newBuilder(baseUri.resolve("/order-service/orders"))
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofString(ORDER_REQUEST)).build());
+            check(name, "POST /orders", 201, created);
+            long orderId = OBJECT_MAPPER.readTree(created.body()).get("id").asLong();
+            check(name, "GET /orders/" + orderId, 200,
+                    send(HttpRequest.newBuilder(baseUri.resolve("/order-service/orders/" + orderId)).GET().build()));
+
+            return String.format("%-6s first GET /orders in %6d ms, resident memory %5d MB", name, readyMillis,
+                    readResidentMegabytes(process.pid()));
+        } finally {
+            process.destroy();
+            process.waitFor();
+        }
+    }
+
+    private static void awaitOrders(Process process, URI baseUri) throws Exception {
+        HttpRequest request = HttpRequest.newBuilder(baseUri.resolve("/order-service/orders")).GET().build();
+        long deadline = System.nanoTime() + STARTUP_TIMEOUT.toNanos();
+        while (System.nanoTime() < deadline) {
+            if (!process.isAlive()) {
+                throw new IllegalStateException("exited with " + process.exitValue() + " before serving " + request.uri());
+            }
+            try {
+                if (send(request).statusCode() == 200) {
+                    return;
+                }
+            } catch (ConnectException e) {
+                // not listening yet
+            }
+            Thread.sleep(20);
+        }
+        throw new IllegalStateException("did not serve " + request.uri() + " within " + STARTUP_TIMEOUT);
+    }
+
+    private static HttpResponse<String> send(HttpRequest request) throws IOException, InterruptedException {
+        return HTTP_CLIENT.send(request, HttpResponse.BodyHandlers.ofString());
+    }
+
+    private static void check(String name, String call, int expectedStatus, HttpResponse<String> response) {
+        if (response.statusCode() != expectedStatus) {
+            throw new IllegalStateException(name + ": " + call + " answered " + response.statusCode() + " "
+                    + response.body());
+        }
+    }
+
+    private static long readResidentMegabytes(long pid) throws IOException {
+        // VmRSS is reported in kB
+        for (String line : Files.readAllLines(Path.of("/proc", Long.toString(pid), "status"))) {
+            if (line.startsWith("VmRSS:")) {
+                return Long.parseLong(line.replaceAll("\\D", "")) / 1024;
+            }
+        }
+        return -1;
+    }
+
+    private static int findFreePort() throws IOException {
+        try (ServerSocket serverSocket = new ServerSocket(0)) {
+            return serverSocket.getLocalPort();
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package com.laan.orderservice.repository;
+
+import liquibase.Contexts;
+import liquibase.LabelExpression;
+import liquibase.Liquibase;
+import liquibase.changelog.ChangeSet;
+import liquibase.database.Database;
+import liquibase.database.DatabaseFactory;
+import liquibase.database.jvm.JdbcConnection;
+import liquibase.resource.ClassLoaderResourceAccessor;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+
+import java.math.BigDecimal;
+import java.sql.Statement;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+
+// a database of its own, migrated in two steps so that rows older than a changeset can be inserted before it runs;
+// identifiers are case insensitive rather than lower case, Liquibase looks for its own tables in upper case
+class ChangelogMigrationTests {
+
+    private static final String URL = "jdbc:h2:mem:%s;MODE=MySQL;CASE_INSENSITIVE_IDENTIFIERS=TRUE;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE";
+
+    @Test
+    void repeatedOrderLinesAreMergedBeforeTheUniqueIndex() throws Exception {
+        DriverManagerDataSource dataSource = new DriverManagerDataSource(String.format(URL, "changelog-merge"), "sa", "");
+        try (Liquibase liquibase = createLiquibase(dataSource)) {
+            liquibase.update(changeSetsBefore(liquibase, "merge-repeated-order-product-lines"), new Contexts(), new LabelExpression());
+        }
+
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.update("insert into `order` (id, total_price, status, created_timestamp, user_id, version) values (1, 60, 'PENDING', current_timestamp, 1, 1)");
+        jdbcTemplate.update("insert into order_product (id, order_id, product_id, unit_price, quantity, price, created_timestamp) values (1, 1, 1, 10, 1, 10, current_timestamp)");
+        jdbcTemplate.update("insert into order_product (id, order_id, product_id, unit_price, quantity, price, created_timestamp) values (2, 1, 2, 10, 1, 10, current_timestamp)");
+        jdbcTemplate.update("insert into order_product (id, order_id, product_id, unit_price, quantity, price, created_timestamp) values (3, 1, 1, 10, 4, 40, current_timestamp)");
+
+        try (Liquibase liquibase = createLiquibase(dataSource)) {
+            liquibase.update(new Contexts(), new LabelExpression());
+        }
+
+        List<Map<String, Object>> lines = jdbcTemplate.queryForList("select id, product_id, quantity, price from order_product order by id");
+        assertEquals(2, lines.size());
+        assertEquals(1L, ((Number) lines.get(0).get("id")).longValue());
+        assertEquals(5, ((Number) lines.get(0).get("quantity")).intValue());
+        assertEquals(0, new BigDecimal("50").compareTo((BigDecimal) lines.get(0).get("price")));
+        assertEquals(2L, ((Number) lines.get(1).get("id")).longValue());
+        assertEquals(1, ((Number) lines.get(1).get("quantity")).intValue());
+    }
+
+    @Test
+    void widenedIdsAreStillGeneratedByTheDatabase() throws Exception {
+        DriverManagerDataSource dataSource = new DriverManagerDataSource(String.format(URL, "changelog-auto-increment"), "sa", "");
+        try (Liquibase liquibase = createLiquibase(dataSource)) {
+            liquibase.update(new Contexts(), new LabelExpression());
+        }
+
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        KeyHolder keyHolder = new GeneratedKeyHolder();
+        jdbcTemplate.update(connection -> connection.prepareStatement("insert into product (type, unit_price, quantity) values ('SHIRT', 10, 1)",
+                Statement.RETURN_GENERATED_KEYS), keyHolder);
+        assertNotNull(keyHolder.getKey());
+    }
+
+    private Liquibase createLiquibase(DriverManagerDataSource dataSource) throws Exception {
+        Database database = DatabaseFactory.getInstance().findCorrectDatabaseImplementation(new JdbcConnection(dataSource.getConnection()));
+        return new Liquibase("db/changelog/db.changelog-master.yaml", new ClassLoaderResourceAccessor(), database);
+    }
+
+    private int changeSetsBefore(Liquibase liquibase, String id) throws Exception {
+        List<ChangeSet> changeSets = liquibase.getDatabaseChangeLog().getChangeSets();
+        for (int i = 0; i < changeSets.size(); i++) {
+            if (changeSets.get(i).getId().equals(id)) {
+                return i;
+            }
+        }
+        throw new IllegalArgumentException("Change set cannot be found for the id: " + id);
+    }
+}
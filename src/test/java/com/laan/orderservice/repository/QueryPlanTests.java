@@ -0,0 +1,191 @@
+package com.laan.orderservice.repository;
+
+import com.laan.orderservice.enums.OrderStatus;
+import com.laan.orderservice.idempotency.IdempotencyKeyStore;
+import com.laan.orderservice.intake.OrderIntakeHandler;
+import com.laan.orderservice.intake.OrderIntakeProcessor;
+import com.laan.orderservice.intake.OrderIntakeStore;
+import com.laan.orderservice.inventory.HotStockLedger;
+import com.laan.orderservice.request.OrderSearchRequest;
+import com.laan.orderservice.response.OrderIntakeResponse;
+import com.laan.orderservice.service.OrderService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Date;
+import java.util.List;
+import java.util.UUID;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+import static com.laan.orderservice.TestOrderRequests.USER_ID;
+import static com.laan.orderservice.TestOrderRequests.orderRequest;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// fails when a hot query is not searched through the index meant for it, after an index was dropped or a query no
+// longer matches one; the statements are the ones the repositories and stores issue, recorded by the embedded database,
+// and the plans are its own, they catch missing indexes, not every choice of the MySql optimizer.
+// a database of its own: the statements of every connection to the database are recorded, and the hot product,
+// whose stock is read with the journal, is configured before the context starts
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:query-plan;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE",
+        "spring.activemq.broker-url=vm://query-plan?broker.persistent=false",
+        "order-service.inventory.hot-product-ids=" + QueryPlanTests.HOT_PRODUCT_ID})
+@ActiveProfiles({"embedded", "test"})
+class QueryPlanTests {
+
+    static final long HOT_PRODUCT_ID = 2;
+
+    private static final long PRODUCT_ID = 1;
+
+    // indexes of primary keys and constraints are named by the database, with a suffix
+    private static final String PRIMARY_KEY = "primary_key";
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private OrderProductRepository orderProductRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private OrderIntakeHandler orderIntakeHandler;
+
+    @Autowired
+    private OrderIntakeProcessor orderIntakeProcessor;
+
+    @Autowired
+    private OrderIntakeStore orderIntakeStore;
+
+    @Autowired
+    private IdempotencyKeyStore idempotencyKeyStore;
+
+    @Autowired
+    private HotStockLedger hotStockLedger;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    private Long orderId;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate.update("update product set quantity = 100 where id = ?", PRODUCT_ID);
+        orderId = orderService.addOrder(orderRequest(PRODUCT_ID, 1)).getId();
+    }
+
+    @Test
+    void orderVersionIsSearchedByPrimaryKey() {
+        assertSearchedThrough(() -> orderRepository.findVersionById(orderId), "from \"order\"", PRIMARY_KEY);
+    }
+
+    @Test
+    void orderWithLinesIsSearchedByPrimaryKeyAndOrderId() {
+        assertSearchedThrough(() -> orderRepository.findOrderLinesById(orderId), "from \"order\"", PRIMARY_KEY, "fk_order_id");
+        assertSearchedThrough(() -> orderRepository.findOrderLinesByIdIn(List.of(orderId, orderId + 1)), "from \"order\"",
+                PRIMARY_KEY, "fk_order_id");
+    }
+
+    @Test
+    void orderLinesAreSearchedByOrderId() {
+        assertSearchedThrough(() -> orderProductRepository.findAllByOrderEntity(orderRepository.getReferenceById(orderId)),
+                "from \"order_product\"", "fk_order_id");
+        assertSearchedThrough(() -> orderProductRepository.findByOrderEntityAndProductEntity(orderRepository.getReferenceById(orderId),
+                productRepository.getReferenceById(PRODUCT_ID)), "from \"order_product\"", "uq_order_product_order_id_product_id");
+    }
+
+    @Test
+    void orderPagesAreSearchedByTheirFilters() {
+        assertSearchedThrough(() -> orderRepository.findPage(createOrderSearchRequest(OrderStatus.PENDING, null, null, orderId - 1), 50),
+                "from \"order\"", "idx_order_status_id");
+        assertSearchedThrough(() -> orderRepository.findPage(createOrderSearchRequest(null, USER_ID, null, orderId - 1), 50),
+                "from \"order\"", "idx_order_user_id_id");
+        assertSearchedThrough(() -> orderRepository.findPage(createOrderSearchRequest(null, null, new Date(0), null), 50),
+                "from \"order\"", "idx_order_created_timestamp_id");
+        assertSearchedThrough(() -> orderRepository.findPage(createOrderSearchRequest(OrderStatus.PENDING, null, new Date(0), null), 50),
+                "from \"order\"", "idx_order_status_created_timestamp");
+        assertSearchedThrough(() -> orderRepository.findPage(createOrderSearchRequest(null, USER_ID, new Date(0), null), 50),
+                "from \"order\"", "idx_order_user_id_created_timestamp");
+    }
+
+    @Test
+    void stocksAreLockedAndReadByPrimaryKey() {
+        assertSearchedThrough(() -> transactionTemplate.execute(status -> productRepository.findAllByIdInForUpdate(List.of(PRODUCT_ID, HOT_PRODUCT_ID))),
+                "from \"product\"", PRIMARY_KEY);
+        assertSearchedThrough(() -> hotStockLedger.refresh(HOT_PRODUCT_ID), "from product p", PRIMARY_KEY, "idx_stock_journal_product_id");
+    }
+
+    @Test
+    void idempotencyKeysAreSearchedByKeyAndAge() {
+        assertSearchedThrough(() -> orderService.addOrder(orderRequest(PRODUCT_ID, 1), UUID.randomUUID().toString()),
+                "from idempotency_key", PRIMARY_KEY);
+        assertSearchedThrough(() -> idempotencyKeyStore.deleteExpiredKeys(), "delete from idempotency_key", "idx_idempotency_key_created_timestamp");
+    }
+
+    @Test
+    void intakesAreSearchedByIdKeyAndStatus() {
+        String idempotencyKey = UUID.randomUUID().toString();
+        OrderIntakeResponse orderIntakeResponse = orderIntakeHandler.accept(orderRequest(PRODUCT_ID, 1), idempotencyKey);
+
+        assertSearchedThrough(() -> orderIntakeHandler.getIntake(orderIntakeResponse.getTrackingId()), "from order_intake where id", PRIMARY_KEY);
+        assertSearchedThrough(() -> orderIntakeHandler.accept(orderRequest(PRODUCT_ID, 1), idempotencyKey),
+                "from order_intake where idempotency_key", "uk_order_intake_idempotency_key");
+        assertSearchedThrough(() -> orderIntakeProcessor.processAccepted(), "from order_intake where status",
+                "idx_order_intake_status_created_timestamp");
+        assertSearchedThrough(() -> orderIntakeStore.deleteExpiredIntakes(), "delete from order_intake", "idx_order_intake_status_updated_timestamp");
+    }
+
+    // every statement of the operation containing the text has to search through all the indexes
+    private void assertSearchedThrough(Runnable operation, String statementText, String... indexNames) {
+        // statements of background jobs are recorded as well, the statements are picked by what they read
+        List<String> statements = recordStatements(operation).stream()
+                .filter(statement -> statement.contains(statementText))
+                .collect(Collectors.toList());
+        assertFalse(statements.isEmpty(), () -> "no statement issued containing: " + statementText);
+
+        for (String statement : statements) {
+            String plan = String.join("\n", jdbcTemplate.query(connection -> connection.prepareStatement("explain " + statement),
+                    (resultSet, rowNum) -> resultSet.getString(1)));
+            for (String indexName : indexNames) {
+                // an index named with conditions is searched, one named alone is only read through in its order
+                Pattern searchedIndex = Pattern.compile("/\\* public\\." + indexName + "\\w*: ", Pattern.CASE_INSENSITIVE);
+                assertTrue(searchedIndex.matcher(plan).find(), () -> indexName + " is not searched for: " + statement + "\n" + plan);
+            }
+        }
+    }
+
+    private List<String> recordStatements(Runnable operation) {
+        // turning the statistics off discards the statements recorded so far
+        jdbcTemplate.execute("set query_statistics false");
+        jdbcTemplate.execute("set query_statistics true");
+        try {
+            operation.run();
+            return jdbcTemplate.queryForList("select sql_statement from information_schema.query_statistics", String.class);
+        } finally {
+            jdbcTemplate.execute("set query_statistics false");
+        }
+    }
+
+    private OrderSearchRequest createOrderSearchRequest(OrderStatus status, Long userId, Date from, Long after) {
+        OrderSearchRequest orderSearchRequest = new OrderSearchRequest();
+        orderSearchRequest.setStatus(status);
+        orderSearchRequest.setUserId(userId);
+        orderSearchRequest.setFrom(from);
+        orderSearchRequest.setAfter(after);
+        return orderSearchRequest;
+    }
+}
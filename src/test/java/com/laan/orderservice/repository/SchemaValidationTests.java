@@ -0,0 +1,27 @@
+package com.laan.orderservice.repository;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import javax.persistence.EntityManagerFactory;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// a database of its own: Hibernate validates the entities against the schema built by the Liquibase changelog alone
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:schema-validation;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE",
+        "spring.activemq.broker-url=vm://schema-validation?broker.persistent=false",
+        "spring.jpa.hibernate.ddl-auto=validate"})
+@ActiveProfiles({"embedded", "test"})
+class SchemaValidationTests {
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Test
+    void entitiesMatchTheChangelogSchema() {
+        assertTrue(entityManagerFactory.isOpen());
+    }
+}
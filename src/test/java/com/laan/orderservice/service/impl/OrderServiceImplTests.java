@@ -0,0 +1,353 @@
+package com.laan.orderservice.service.impl;
+
+import com.laan.orderservice.enums.BatchItemStatus;
+import com.laan.orderservice.enums.OrderStatus;
+import com.laan.orderservice.exception.InvalidOrderStatusException;
+import com.laan.orderservice.exception.OrderNotFoundException;
+import com.laan.orderservice.exception.QuantityMismatchException;
+import com.laan.orderservice.request.BatchOrderRequest;
+import com.laan.orderservice.request.BatchOrderStatusRequest;
+import com.laan.orderservice.request.OrderRequest;
+import com.laan.orderservice.request.OrderSearchRequest;
+import com.laan.orderservice.request.OrderStatusRequest;
+import com.laan.orderservice.request.ProductRequest;
+import com.laan.orderservice.response.BatchItemResponse;
+import com.laan.orderservice.response.OrderPageResponse;
+import com.laan.orderservice.response.OrderResponse;
+import com.laan.orderservice.response.ProductResponse;
+import com.laan.orderservice.service.OrderService;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.persistence.EntityManagerFactory;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static com.laan.orderservice.TestOrderRequests.orderRequest;
+import static com.laan.orderservice.TestOrderRequests.productRequest;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest
+@ActiveProfiles({"embedded", "test"})
+class OrderServiceImplTests {
+
+    private static final long FIRST_PRODUCT_ID = 1001;
+
+    private static final int PRODUCT_COUNT = 20;
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate.update("delete from product where id >= ?", FIRST_PRODUCT_ID);
+        for (long id = FIRST_PRODUCT_ID; id < FIRST_PRODUCT_ID + PRODUCT_COUNT; id++) {
+            jdbcTemplate.update("insert into product (id, type, unit_price, quantity) values (?, 'SHIRT', 100.00, 50)", id);
+        }
+    }
+
+    @Test
+    void addOrderDeductsStocks() {
+        OrderResponse orderResponse = orderService.addOrder(createOrderRequest(3, 2));
+
+        assertEquals(3, orderResponse.getProducts().size());
+        assertEquals(0, orderResponse.getTotalPrice().compareTo(new java.math.BigDecimal("600")));
+        assertEquals(48, jdbcTemplate.queryForObject("select quantity from product where id = ?", Integer.class, FIRST_PRODUCT_ID));
+    }
+
+    @Test
+    void addOrderRejectsQuantityOverStock() {
+        QuantityMismatchException exception = assertThrows(QuantityMismatchException.class, () -> orderService.addOrder(createOrderRequest(2, 51)));
+
+        assertEquals("Cannot supply 51 product/s for product id: " + FIRST_PRODUCT_ID + ". Only 50 available.", exception.getMessage());
+        assertEquals(50, jdbcTemplate.queryForObject("select quantity from product where id = ?", Integer.class, FIRST_PRODUCT_ID));
+    }
+
+    @Test
+    void addOrderMergesRepeatedProduct() {
+        OrderRequest orderRequest = createOrderRequest(2, 1);
+        orderRequest.getProducts().get(1).setId(FIRST_PRODUCT_ID);
+
+        OrderResponse orderResponse = orderService.addOrder(orderRequest);
+
+        assertEquals(1, orderResponse.getProducts().size());
+        assertEquals(2, orderResponse.getProducts().get(0).getQuantity());
+        assertEquals(1, jdbcTemplate.queryForObject("select count(*) from order_product where order_id = ?", Integer.class, orderResponse.getId()));
+        assertEquals(48, jdbcTemplate.queryForObject("select quantity from product where id = ?", Integer.class, FIRST_PRODUCT_ID));
+        // the request is left as it was sent
+        assertEquals(2, orderRequest.getProducts().size());
+    }
+
+    @Test
+    void addOrderStatementCountDoesNotGrowWithBasketSize() {
+        long smallOrderStatements = countStatements(createOrderRequest(1, 1));
+        long largeOrderStatements = countStatements(createOrderRequest(PRODUCT_COUNT, 1));
+
+        // products are loaded and deducted with one statement each, the lines take ids from the allocated block
+        // and are inserted in one batch
+        assertEquals(smallOrderStatements, largeOrderStatements);
+    }
+
+    @Test
+    void updateOrderStatementCountDoesNotGrowWithBasketSize() {
+        long smallOrderStatements = countUpdateStatements(1);
+        long largeOrderStatements = countUpdateStatements(PRODUCT_COUNT);
+
+        // order, lines and products are loaded once and the changed lines are updated in one batch
+        assertEquals(smallOrderStatements, largeOrderStatements);
+        assertEquals(46, jdbcTemplate.queryForObject("select quantity from product where id = ?", Integer.class, FIRST_PRODUCT_ID));
+    }
+
+    @Test
+    void updateOrderReturnsVersionForTheNextUpdate() {
+        OrderResponse orderResponse = orderService.addOrder(createOrderRequest(2, 1));
+        OrderRequest orderRequest = createOrderRequest(2, 2);
+        orderRequest.setVersion(orderResponse.getVersion());
+        OrderResponse updatedOrderResponse = orderService.updateOrder(orderResponse.getId(), orderRequest);
+
+        assertEquals(orderResponse.getVersion() + 1, updatedOrderResponse.getVersion());
+        orderRequest.setVersion(updatedOrderResponse.getVersion());
+        assertEquals(orderResponse.getVersion() + 2, orderService.updateOrder(orderResponse.getId(), orderRequest).getVersion());
+    }
+
+    @Test
+    void addOrdersReportsEveryOrder() {
+        OrderRequest unknownUserOrderRequest = createOrderRequest(1, 1);
+        unknownUserOrderRequest.setUserId(-1L);
+        BatchOrderRequest batchOrderRequest = new BatchOrderRequest();
+        batchOrderRequest.setOrders(List.of(createOrderRequest(2, 2), unknownUserOrderRequest, createOrderRequest(1, 49), createOrderRequest(1, 48)));
+
+        List<BatchItemResponse> results = orderService.addOrders(batchOrderRequest).getResults();
+
+        assertEquals(List.of(BatchItemStatus.CREATED, BatchItemStatus.REJECTED, BatchItemStatus.REJECTED, BatchItemStatus.CREATED),
+                results.stream().map(BatchItemResponse::getStatus).collect(Collectors.toList()));
+        assertEquals("User cannot be found for the id: -1", results.get(1).getMessage());
+        assertEquals("Cannot supply 49 product/s for product id: " + FIRST_PRODUCT_ID + ". Only 48 available.", results.get(2).getMessage());
+        assertEquals(2, results.get(0).getOrder().getProducts().size());
+        assertEquals(0, jdbcTemplate.queryForObject("select quantity from product where id = ?", Integer.class, FIRST_PRODUCT_ID));
+        assertEquals(48, jdbcTemplate.queryForObject("select quantity from product where id = ?", Integer.class, FIRST_PRODUCT_ID + 1));
+    }
+
+    @Test
+    void addOrdersStatementCountDoesNotGrowWithBatchSize() {
+        long smallBatchStatements = countBatchStatements(1);
+        long largeBatchStatements = countBatchStatements(PRODUCT_COUNT);
+
+        // products are locked and deducted with one statement each, orders and lines are inserted in one batch each
+        assertEquals(smallBatchStatements, largeBatchStatements);
+    }
+
+    @Test
+    void updateOrderStatusesReportsEveryOrder() {
+        Long firstOrderId = orderService.addOrder(createOrderRequest(1, 1)).getId();
+        Long secondOrderId = orderService.addOrder(createOrderRequest(1, 1)).getId();
+        BatchOrderStatusRequest batchOrderStatusRequest = new BatchOrderStatusRequest();
+        batchOrderStatusRequest.setOrders(List.of(createOrderStatusRequest(firstOrderId, OrderStatus.PROCESSING), createOrderStatusRequest(-1L, OrderStatus.PROCESSING),
+                createOrderStatusRequest(secondOrderId, OrderStatus.COMPLETED), createOrderStatusRequest(firstOrderId, OrderStatus.COMPLETED)));
+
+        List<BatchItemResponse> results = orderService.updateOrderStatuses(batchOrderStatusRequest).getResults();
+
+        assertEquals(List.of(BatchItemStatus.UPDATED, BatchItemStatus.NOT_FOUND, BatchItemStatus.REJECTED, BatchItemStatus.REJECTED),
+                results.stream().map(BatchItemResponse::getStatus).collect(Collectors.toList()));
+        assertEquals(OrderStatus.PROCESSING, results.get(0).getOrder().getStatus());
+        assertEquals(OrderStatus.PROCESSING, orderService.getOrder(firstOrderId).getStatus());
+        assertEquals(OrderStatus.PENDING, orderService.getOrder(secondOrderId).getStatus());
+    }
+
+    @Test
+    void deleteOrderGivesStocksBack() {
+        Long orderId = orderService.addOrder(createOrderRequest(2, 5)).getId();
+        orderService.deleteOrder(orderId);
+
+        assertEquals(50, jdbcTemplate.queryForObject("select quantity from product where id = ?", Integer.class, FIRST_PRODUCT_ID + 1));
+        assertThrows(OrderNotFoundException.class, () -> orderService.deleteOrder(orderId));
+    }
+
+    @Test
+    void updateOrderStatusFollowsStatusFlow() {
+        Long orderId = orderService.addOrder(createOrderRequest(1, 1)).getId();
+
+        assertThrows(InvalidOrderStatusException.class, () -> orderService.updateOrderStatus(orderId, OrderStatus.COMPLETED));
+        assertEquals(OrderStatus.PROCESSING, orderService.updateOrderStatus(orderId, OrderStatus.PROCESSING).getStatus());
+        assertEquals(OrderStatus.COMPLETED, orderService.updateOrderStatus(orderId, OrderStatus.COMPLETED).getStatus());
+    }
+
+    @Test
+    void getOrderReadsOrderAndProductsOnceThenOnlyTheVersion() {
+        Long orderId = orderService.addOrder(createOrderRequest(3, 2)).getId();
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        OrderResponse orderResponse = orderService.getOrder(orderId);
+
+        // the version, then the order and its lines with a single query
+        assertEquals(2, statistics.getPrepareStatementCount());
+        assertEquals(0, statistics.getEntityLoadCount());
+        assertEquals(List.of(FIRST_PRODUCT_ID, FIRST_PRODUCT_ID + 1, FIRST_PRODUCT_ID + 2),
+                orderResponse.getProducts().stream().map(ProductResponse::getId).collect(Collectors.toList()));
+
+        statistics.clear();
+        assertSame(orderResponse, orderService.getOrder(orderId));
+        assertEquals(1, statistics.getPrepareStatementCount());
+        assertThrows(OrderNotFoundException.class, () -> orderService.getOrder(-1L));
+    }
+
+    @Test
+    void getOrderServesNoCachedResponseOfAnOlderVersion() {
+        Long orderId = orderService.addOrder(createOrderRequest(2, 1)).getId();
+        OrderResponse orderResponse = orderService.getOrder(orderId);
+
+        orderService.updateOrderStatus(orderId, OrderStatus.PROCESSING);
+        OrderResponse processingOrderResponse = orderService.getOrder(orderId);
+        assertEquals(OrderStatus.PROCESSING, processingOrderResponse.getStatus());
+        assertEquals(orderResponse.getVersion() + 1, processingOrderResponse.getVersion());
+
+        // a change bypassing this instance leaves its cached response behind
+        jdbcTemplate.update("update `order` set status = 'COMPLETED', version = version + 1 where id = ?", orderId);
+        assertEquals(OrderStatus.COMPLETED, orderService.getOrder(orderId).getStatus());
+
+        Long deletedOrderId = orderService.addOrder(createOrderRequest(1, 1)).getId();
+        orderService.getOrder(deletedOrderId);
+        orderService.deleteOrder(deletedOrderId);
+        assertThrows(OrderNotFoundException.class, () -> orderService.getOrder(deletedOrderId));
+    }
+
+    @Test
+    void getOrderAfterAnUpdateOfSomeProductsReturnsEveryProduct() {
+        OrderResponse orderResponse = orderService.addOrder(createOrderRequest(2, 1));
+        orderService.getOrder(orderResponse.getId());
+        OrderRequest orderRequest = createOrderRequest(1, 2);
+        orderRequest.setVersion(orderResponse.getVersion());
+        orderService.updateOrder(orderResponse.getId(), orderRequest);
+
+        OrderResponse updatedOrderResponse = orderService.getOrder(orderResponse.getId());
+        assertEquals(orderResponse.getVersion() + 1, updatedOrderResponse.getVersion());
+        assertEquals(List.of(FIRST_PRODUCT_ID, FIRST_PRODUCT_ID + 1),
+                updatedOrderResponse.getProducts().stream().map(ProductResponse::getId).collect(Collectors.toList()));
+        assertEquals(2, updatedOrderResponse.getProducts().get(0).getQuantity());
+    }
+
+    @Test
+    void getOrdersIncludesProductsOfThePage() {
+        Long firstOrderId = orderService.addOrder(createOrderRequest(1, 1)).getId();
+        orderService.addOrder(createOrderRequest(2, 1));
+        OrderSearchRequest orderSearchRequest = new OrderSearchRequest();
+        orderSearchRequest.setAfter(firstOrderId - 1);
+        orderSearchRequest.setIncludeProducts(true);
+
+        List<OrderResponse> orderResponses = orderService.getOrders(orderSearchRequest).getOrders();
+
+        assertEquals(2, orderResponses.size());
+        assertEquals(1, orderResponses.get(0).getProducts().size());
+        assertEquals(2, orderResponses.get(1).getProducts().size());
+    }
+
+    @Test
+    void getOrdersPagesThroughMatchingOrders() {
+        Long userId = 1L;
+        List<Long> orderIds = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            orderIds.add(orderService.addOrder(createOrderRequest(1, 1)).getId());
+        }
+        OrderSearchRequest orderSearchRequest = new OrderSearchRequest();
+        orderSearchRequest.setUserId(userId);
+        orderSearchRequest.setStatus(OrderStatus.PENDING);
+        orderSearchRequest.setAfter(orderIds.get(0) - 1);
+        orderSearchRequest.setLimit(2);
+
+        OrderPageResponse firstPage = orderService.getOrders(orderSearchRequest);
+        assertEquals(orderIds.subList(0, 2), firstPage.getOrders().stream().map(OrderResponse::getId).collect(Collectors.toList()));
+        assertEquals(orderIds.get(1), firstPage.getNextCursor());
+
+        orderSearchRequest.setAfter(firstPage.getNextCursor());
+        OrderPageResponse secondPage = orderService.getOrders(orderSearchRequest);
+        assertEquals(orderIds.subList(2, 3), secondPage.getOrders().stream().map(OrderResponse::getId).collect(Collectors.toList()));
+        assertNull(secondPage.getNextCursor());
+    }
+
+    @Test
+    void streamOrdersSendsEveryMatchingOrder() {
+        Long firstOrderId = orderService.addOrder(createOrderRequest(1, 1)).getId();
+        Long secondOrderId = orderService.addOrder(createOrderRequest(2, 1)).getId();
+        Long thirdOrderId = orderService.addOrder(createOrderRequest(1, 1)).getId();
+        OrderSearchRequest orderSearchRequest = new OrderSearchRequest();
+        orderSearchRequest.setAfter(firstOrderId - 1);
+
+        // the orders span two pages of the test profile
+        List<Long> streamedOrderIds = new ArrayList<>();
+        orderService.streamOrders(orderSearchRequest, orderResponse -> {
+            // orders are sent between the transactions of the pages, with no connection held
+            assertFalse(TransactionSynchronizationManager.isActualTransactionActive());
+            streamedOrderIds.add(orderResponse.getId());
+        });
+
+        assertEquals(List.of(firstOrderId, secondOrderId, thirdOrderId), streamedOrderIds);
+        assertEquals(firstOrderId - 1, orderSearchRequest.getAfter());
+    }
+
+    private long countStatements(OrderRequest orderRequest) {
+        // the first order warms up the catalog cache, the second one is measured
+        orderService.addOrder(orderRequest);
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        orderService.addOrder(orderRequest);
+        return statistics.getPrepareStatementCount();
+    }
+
+    private long countBatchStatements(int orderCount) {
+        BatchOrderRequest batchOrderRequest = new BatchOrderRequest();
+        batchOrderRequest.setOrders(Collections.nCopies(orderCount, createOrderRequest(2, 1)));
+        // the first batch warms up the catalog cache, the second one is measured
+        orderService.addOrders(batchOrderRequest);
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        orderService.addOrders(batchOrderRequest);
+        return statistics.getPrepareStatementCount();
+    }
+
+    private long countUpdateStatements(int productCount) {
+        OrderResponse orderResponse = orderService.addOrder(createOrderRequest(productCount, 1));
+        OrderRequest orderRequest = createOrderRequest(productCount, 2);
+        orderRequest.setVersion(orderResponse.getVersion());
+
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        orderService.updateOrder(orderResponse.getId(), orderRequest);
+        return statistics.getPrepareStatementCount();
+    }
+
+    private OrderStatusRequest createOrderStatusRequest(Long id, OrderStatus status) {
+        OrderStatusRequest orderStatusRequest = new OrderStatusRequest();
+        orderStatusRequest.setId(id);
+        orderStatusRequest.setStatus(status);
+        return orderStatusRequest;
+    }
+
+    private OrderRequest createOrderRequest(int productCount, int quantity) {
+        ProductRequest[] productRequests = new ProductRequest[productCount];
+        for (int i = 0; i < productCount; i++) {
+            productRequests[i] = productRequest(FIRST_PRODUCT_ID + i, quantity);
+        }
+        return orderRequest(productRequests);
+    }
+}
@@ -0,0 +1,89 @@
+package com.laan.orderservice.service.impl;
+
+import com.laan.orderservice.exception.QuantityMismatchException;
+import com.laan.orderservice.service.OrderService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.laan.orderservice.TestOrderRequests.orderRequest;
+import static com.laan.orderservice.TestOrderRequests.productRequest;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@SpringBootTest
+@ActiveProfiles({"embedded", "test"})
+class StockReservationServiceImplTests {
+
+    private static final long FIRST_PRODUCT_ID = 2001;
+
+    private static final long SECOND_PRODUCT_ID = 2002;
+
+    private static final int STOCK = 100;
+
+    private static final int THREADS = 16;
+
+    private static final int ORDERS_PER_THREAD = 25;
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate.update("delete from product where id in (?, ?)", FIRST_PRODUCT_ID, SECOND_PRODUCT_ID);
+        jdbcTemplate.update("insert into product (id, type, unit_price, quantity) values (?, 'SHIRT', 100.00, ?)", FIRST_PRODUCT_ID, STOCK);
+        jdbcTemplate.update("insert into product (id, type, unit_price, quantity) values (?, 'FROCK', 150.00, ?)", SECOND_PRODUCT_ID, STOCK);
+    }
+
+    @Test
+    void concurrentOrdersNeverOversell() throws Exception {
+        AtomicInteger placedOrders = new AtomicInteger();
+        AtomicInteger rejectedOrders = new AtomicInteger();
+        ExecutorService executorService = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch startLatch = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int thread = 0; thread < THREADS; thread++) {
+            // half of the threads list the products in reverse order, to provoke lock ordering problems
+            boolean reversed = thread % 2 == 1;
+            futures.add(executorService.submit(() -> {
+                startLatch.await();
+                for (int i = 0; i < ORDERS_PER_THREAD; i++) {
+                    try {
+                        orderService.addOrder(reversed ? orderRequest(productRequest(SECOND_PRODUCT_ID, 1), productRequest(FIRST_PRODUCT_ID, 1))
+                                : orderRequest(productRequest(FIRST_PRODUCT_ID, 1), productRequest(SECOND_PRODUCT_ID, 1)));
+                        placedOrders.incrementAndGet();
+                    } catch (QuantityMismatchException exception) {
+                        rejectedOrders.incrementAndGet();
+                    }
+                }
+                return null;
+            }));
+        }
+        startLatch.countDown();
+        for (Future<?> future : futures) {
+            future.get(2, TimeUnit.MINUTES);
+        }
+        executorService.shutdown();
+
+        assertEquals(STOCK, placedOrders.get());
+        assertEquals(THREADS * ORDERS_PER_THREAD - STOCK, rejectedOrders.get());
+        for (long productId : new long[]{FIRST_PRODUCT_ID, SECOND_PRODUCT_ID}) {
+            assertEquals(0, jdbcTemplate.queryForObject("select quantity from product where id = ?", Integer.class, productId));
+            assertEquals(STOCK, jdbcTemplate.queryForObject("select sum(quantity) from order_product where product_id = ?", Integer.class, productId));
+        }
+    }
+}